@@ -0,0 +1,61 @@
+package com.fractalhive.keycloak.benchmarks;
+
+import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+import com.fractalhive.keycloak.config.JwtAuthConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of a decoded Keycloak access token into an authentication with granted authorities,
+ * for tokens carrying 10, 100 and 1000 realm and client roles each.
+ * <p>
+ * With {@code cacheAuthorities=true} the same token is converted repeatedly, as happens when a client
+ * reuses its access token, so every conversion after the first hits the authorities cache.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtAuthConverterBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int roleCount;
+
+    @Param({"false", "true"})
+    private boolean cacheAuthorities;
+
+    private JwtAuthConverter converter;
+    private Jwt jwt;
+
+    @Setup
+    public void setUp() {
+        KeycloakAuthProperties properties = new KeycloakAuthProperties();
+        properties.setRealm(Tokens.REALM);
+        properties.setClientId(Tokens.CLIENT_ID);
+        properties.getCache().getAuthorities().setEnabled(cacheAuthorities);
+
+        converter = new JwtAuthConverter(properties);
+        jwt = Tokens.accessToken(roleCount);
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken convert() {
+        return converter.convert(jwt);
+    }
+}
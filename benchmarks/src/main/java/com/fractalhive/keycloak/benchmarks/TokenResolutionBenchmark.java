@@ -0,0 +1,120 @@
+package com.fractalhive.keycloak.benchmarks;
+
+import com.fractalhive.keycloak.config.AuthorizationHeaderRequestWrapper;
+import com.fractalhive.keycloak.config.CookieBearerTokenResolver;
+import com.fractalhive.keycloak.config.JwtCookieAuthenticationFilter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request access token resolution: the bearer token resolver used by default, and the legacy
+ * cookie-to-header filter with its request wrapper.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TokenResolutionBenchmark {
+
+    private final CookieBearerTokenResolver resolver = new CookieBearerTokenResolver();
+    private final ExposedCookieFilter legacyFilter = new ExposedCookieFilter();
+    private final CapturingFilterChain filterChain = new CapturingFilterChain();
+    private final HttpServletResponse response = new MockHttpServletResponse();
+
+    private MockHttpServletRequest cookieRequest;
+    private MockHttpServletRequest headerRequest;
+    private AuthorizationHeaderRequestWrapper wrappedRequest;
+
+    @Setup
+    public void setUp() {
+        String token = Tokens.tokenValue();
+
+        // Browsers send analytics and session cookies alongside the token
+        cookieRequest = new MockHttpServletRequest("GET", "/api/orders");
+        cookieRequest.addHeader(HttpHeaders.COOKIE, "_ga=GA1.1.1234567890.1700000000; theme=dark; "
+                + JwtCookieAuthenticationFilter.ACCESS_TOKEN_COOKIE + "=" + token + "; "
+                + JwtCookieAuthenticationFilter.REFRESH_TOKEN_COOKIE + "=" + token + "; locale=en-US");
+        cookieRequest.addHeader(HttpHeaders.ACCEPT, "application/json");
+
+        headerRequest = new MockHttpServletRequest("GET", "/api/orders");
+        headerRequest.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        headerRequest.addHeader(HttpHeaders.ACCEPT, "application/json");
+
+        wrappedRequest = new AuthorizationHeaderRequestWrapper(cookieRequest, "Bearer " + token);
+    }
+
+    @Benchmark
+    public String resolveFromCookie() {
+        return resolver.resolve(cookieRequest);
+    }
+
+    @Benchmark
+    public String resolveFromHeader() {
+        return resolver.resolve(headerRequest);
+    }
+
+    @Benchmark
+    public ServletRequest legacyFilterWithCookie() throws ServletException, IOException {
+        legacyFilter.filter(cookieRequest, response, filterChain);
+        return filterChain.lastRequest;
+    }
+
+    @Benchmark
+    public ServletRequest legacyFilterWithHeader() throws ServletException, IOException {
+        legacyFilter.filter(headerRequest, response, filterChain);
+        return filterChain.lastRequest;
+    }
+
+    @Benchmark
+    public String wrapperGetAuthorizationHeader() {
+        return wrappedRequest.getHeader(HttpHeaders.AUTHORIZATION);
+    }
+
+    @Benchmark
+    public String wrapperGetOtherHeader() {
+        return wrappedRequest.getHeader(HttpHeaders.ACCEPT);
+    }
+
+    /**
+     * Calls {@code doFilterInternal} directly, bypassing the once-per-request bookkeeping of
+     * {@code OncePerRequestFilter} that would skip repeated invocations with the same request.
+     */
+    private static final class ExposedCookieFilter extends JwtCookieAuthenticationFilter {
+
+        void filter(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            doFilterInternal(request, response, chain);
+        }
+    }
+
+    private static final class CapturingFilterChain implements FilterChain {
+
+        private ServletRequest lastRequest;
+
+        @Override
+        public void doFilter(ServletRequest request, jakarta.servlet.ServletResponse response) {
+            lastRequest = request;
+        }
+    }
+}
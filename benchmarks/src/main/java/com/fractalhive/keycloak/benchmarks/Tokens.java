@@ -0,0 +1,73 @@
+package com.fractalhive.keycloak.benchmarks;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keycloak-shaped access tokens for benchmarks.
+ */
+final class Tokens {
+
+    static final String CLIENT_ID = "benchmark-app";
+    static final String REALM = "benchmark";
+
+    private Tokens() {
+    }
+
+    /**
+     * Access token with {@code roleCount} realm roles and {@code roleCount} client roles, with the claims
+     * Keycloak puts into a typical access token.
+     */
+    static Jwt accessToken(int roleCount) {
+        Instant issuedAt = Instant.now();
+
+        return Jwt.withTokenValue(tokenValue())
+                .header("alg", "RS256")
+                .header("typ", "JWT")
+                .header("kid", "benchmark-key")
+                .claim("exp", issuedAt.plusSeconds(300))
+                .claim("iat", issuedAt)
+                .claim("jti", UUID.randomUUID().toString())
+                .claim("iss", "http://localhost:8080/realms/" + REALM)
+                .claim("aud", List.of(CLIENT_ID, "account"))
+                .claim("sub", UUID.randomUUID().toString())
+                .claim("typ", "Bearer")
+                .claim("azp", CLIENT_ID)
+                .claim("sid", UUID.randomUUID().toString())
+                .claim("acr", "1")
+                .claim("scope", "openid profile email")
+                .claim("email_verified", true)
+                .claim("name", "Bench Mark")
+                .claim("preferred_username", "bench@example.com")
+                .claim("given_name", "Bench")
+                .claim("family_name", "Mark")
+                .claim("email", "bench@example.com")
+                .claim("realm_access", Map.of("roles", roles("realm-role-", roleCount)))
+                .claim("resource_access", Map.of(
+                        CLIENT_ID, Map.of("roles", roles("client-role-", roleCount)),
+                        "account", Map.of("roles", List.of("manage-account", "view-profile"))
+                ))
+                .build();
+    }
+
+    /**
+     * Opaque stand-in for an encoded access token, sized like a real one.
+     */
+    static String tokenValue() {
+        return "eyJhbGciOiJSUzI1NiIsInR5cCIgOiAiSldUIiwia2lkIiA6ICJiZW5jaG1hcmsta2V5In0."
+                + "x".repeat(900) + "." + "s".repeat(342);
+    }
+
+    private static List<String> roles(String prefix, int count) {
+        List<String> roles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            roles.add(prefix + i);
+        }
+        return roles;
+    }
+}
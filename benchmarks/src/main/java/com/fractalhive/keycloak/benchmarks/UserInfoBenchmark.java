@@ -0,0 +1,67 @@
+package com.fractalhive.keycloak.benchmarks;
+
+import com.fractalhive.keycloak.dto.UserInfoResponse;
+import com.fractalhive.keycloak.service.KeycloakAuthService;
+import com.fractalhive.keycloak.util.SecurityUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading the current user from the security context and the token claims, as {@code /auth/me} does.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class UserInfoBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int roleCount;
+
+    // getUserInfo only reads the token, so no reactive service is needed
+    private final KeycloakAuthService authService = new KeycloakAuthService(null);
+
+    private Jwt jwt;
+
+    /**
+     * Runs on the benchmark thread, so the thread-local security context is visible to the benchmarks.
+     */
+    @Setup
+    public void setUp() {
+        jwt = Tokens.accessToken(roleCount);
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt));
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public UserInfoResponse getUserInfo() {
+        return authService.getUserInfo(jwt);
+    }
+
+    @Benchmark
+    public Optional<Jwt> getJwt() {
+        return SecurityUtils.getJwt();
+    }
+}
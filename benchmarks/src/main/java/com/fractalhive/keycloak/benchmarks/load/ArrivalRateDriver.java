@@ -0,0 +1,96 @@
+package com.fractalhive.keycloak.benchmarks.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+/**
+ * Sends requests at a fixed arrival rate, regardless of how fast responses come back (open workload model).
+ * <p>
+ * Latency is measured from the moment a request was scheduled to be sent, not from when it was actually
+ * sent, so a slow server can't hide queueing delay by slowing down the load generator (coordinated
+ * omission). Requests that would exceed {@code maxInFlight} are not sent and are counted as dropped.
+ * </p>
+ */
+final class ArrivalRateDriver {
+
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient httpClient;
+    private final int maxInFlight;
+
+    ArrivalRateDriver(HttpClient httpClient, int maxInFlight) {
+        this.httpClient = httpClient;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Send {@code ratePerSecond} requests per second for {@code duration}.
+     *
+     * @param requests builds the n-th request
+     */
+    Result run(IntFunction<HttpRequest> requests, int ratePerSecond, Duration duration) {
+        Histogram latencies = new ConcurrentHistogram(3);
+        LongAdder errors = new LongAdder();
+        AtomicInteger inFlight = new AtomicInteger();
+        long dropped = 0;
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long count = duration.toNanos() / intervalNanos;
+        long start = System.nanoTime();
+
+        for (int i = 0; i < count; i++) {
+            long scheduledAt = start + i * intervalNanos;
+            long wait;
+            while ((wait = scheduledAt - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            if (inFlight.incrementAndGet() > maxInFlight) {
+                inFlight.decrementAndGet();
+                dropped++;
+                continue;
+            }
+
+            httpClient.sendAsync(requests.apply(i), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, ex) -> {
+                        latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduledAt));
+                        if (ex != null || response.statusCode() >= 400) {
+                            errors.increment();
+                        }
+                        inFlight.decrementAndGet();
+                    });
+        }
+
+        long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+
+        return new Result(latencies.copy(), errors.sum(), dropped + inFlight.get(), Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * @param latencies latency of every completed request, in microseconds
+     * @param dropped   requests not sent because too many were in flight, or not completed in time
+     */
+    record Result(Histogram latencies, long errors, long dropped, Duration elapsed) {
+
+        long completed() {
+            return latencies.getTotalCount();
+        }
+
+        double throughput() {
+            return completed() / (elapsed.toNanos() / 1e9);
+        }
+    }
+}
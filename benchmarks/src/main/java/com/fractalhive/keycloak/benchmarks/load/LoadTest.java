@@ -0,0 +1,383 @@
+package com.fractalhive.keycloak.benchmarks.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fractalhive.keycloak.config.JwtCookieAuthenticationFilter;
+import com.fractalhive.keycloak.stub.KeycloakStubServer;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * End-to-end load test of the {@code /auth} endpoints against the Keycloak stub.
+ * <p>
+ * For each execution mode, the application ({@link LoadTestApplication}) is started in its own JVM and
+ * pointed at an in-process {@link KeycloakStubServer}. Each scenario is then driven at a fixed arrival
+ * rate, first to warm up and then to measure, and the report lists latency percentiles, throughput, and
+ * the application's allocation and CPU time per request.
+ * </p>
+ * <p>
+ * Options, all optional ({@code --name=value}):
+ * </p>
+ * <ul>
+ *   <li>{@code modes}: execution modes to compare (default {@code platform,virtual-threads})</li>
+ *   <li>{@code scenarios}: {@code login}, {@code refresh}, {@code me}, {@code user-roles} (default: all)</li>
+ *   <li>{@code rate}: requests per second (default {@code 200})</li>
+ *   <li>{@code duration}, {@code warmup}: measurement and warm-up time per scenario (default {@code 30s}, {@code 10s})</li>
+ *   <li>{@code users}, {@code roles}: users seeded in the stub and realm roles per user (default {@code 1000}, {@code 10})</li>
+ *   <li>{@code stub-latency}, {@code stub-latency-jitter}, {@code stub-error-rate}: Keycloak behaviour
+ *       (default {@code 5ms}, {@code 0ms}, {@code 0})</li>
+ *   <li>{@code max-in-flight}: requests in flight before new ones are dropped (default {@code 10000})</li>
+ *   <li>{@code app-jvm-args}: space-separated JVM options of the application (default {@code -Xmx512m})</li>
+ * </ul>
+ */
+public final class LoadTest {
+
+    static final String COUNTERS_PATH = "/load-test/counters";
+
+    private static final String REALM = "load-test";
+    private static final String CLIENT_ID = "load-test-app";
+    private static final String CLIENT_SECRET = "load-test-secret";
+    private static final String PASSWORD = "password";
+    private static final int SESSIONS = 100;
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(90);
+
+    private final Map<String, String> options;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    private LoadTest(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest(parseOptions(args)).run();
+    }
+
+    private void run() throws Exception {
+        int rate = intOption("rate", 200);
+        Duration duration = durationOption("duration", "30s");
+        Duration warmup = durationOption("warmup", "10s");
+        List<String> scenarioNames = listOption("scenarios", "login,refresh,me,user-roles");
+        ArrivalRateDriver driver = new ArrivalRateDriver(httpClient, intOption("max-in-flight", 10_000));
+
+        List<String> report = new ArrayList<>();
+        try (KeycloakStubServer stub = startStub()) {
+            List<String> userIds = seedUsers(stub);
+
+            for (String mode : listOption("modes", "platform,virtual-threads")) {
+                try (ApplicationProcess app = ApplicationProcess.start(mode, stub, appJvmArgs())) {
+                    awaitStartup(app);
+                    Map<String, IntFunction<HttpRequest>> scenarios = scenarios(app.baseUrl(), stub, userIds);
+
+                    for (String scenarioName : scenarioNames) {
+                        IntFunction<HttpRequest> scenario = scenarios.get(scenarioName);
+                        if (scenario == null) {
+                            throw new IllegalArgumentException("Unknown scenario: " + scenarioName);
+                        }
+
+                        log("%s / %s: warming up for %ss", mode, scenarioName, warmup.toSeconds());
+                        driver.run(scenario, rate, warmup);
+
+                        log("%s / %s: measuring %d req/s for %ss", mode, scenarioName, rate, duration.toSeconds());
+                        Map<String, Long> before = counters(app);
+                        ArrivalRateDriver.Result result = driver.run(scenario, rate, duration);
+                        Map<String, Long> after = counters(app);
+
+                        report.add(formatRow(mode, scenarioName, rate, result, before, after));
+                    }
+                }
+            }
+        }
+
+        printReport(report);
+    }
+
+    // ---- Setup ----
+
+    private KeycloakStubServer startStub() {
+        KeycloakStubServer stub = KeycloakStubServer.builder()
+                .realm(REALM)
+                .client(CLIENT_ID, CLIENT_SECRET)
+                // Pre-issued access tokens must outlive the whole run
+                .accessTokenLifespan(Duration.ofHours(12))
+                .refreshTokenLifespan(Duration.ofHours(12))
+                .start();
+
+        stub.getFaults()
+                .setLatency(durationOption("stub-latency", "5ms"))
+                .setLatencyJitter(durationOption("stub-latency-jitter", "0ms"))
+                .setErrorRate(Double.parseDouble(options.getOrDefault("stub-error-rate", "0")));
+        return stub;
+    }
+
+    private List<String> seedUsers(KeycloakStubServer stub) {
+        int roleCount = intOption("roles", 10);
+        String[] roleNames = new String[roleCount];
+        for (int i = 0; i < roleCount; i++) {
+            roleNames[i] = "role-" + (i + 1);
+            stub.createRealmRole(roleNames[i]);
+        }
+
+        int userCount = intOption("users", 1000);
+        List<String> userIds = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            String userId = stub.createUser(email(i), PASSWORD, "Load", "User " + i);
+            if (roleCount > 0) {
+                stub.assignRealmRoles(userId, roleNames);
+            }
+            userIds.add(userId);
+        }
+        return userIds;
+    }
+
+    private List<String> appJvmArgs() {
+        return listOption("app-jvm-args", "-Xmx512m", " ");
+    }
+
+    private void awaitStartup(ApplicationProcess app) throws InterruptedException {
+        Instant deadline = Instant.now().plus(STARTUP_TIMEOUT);
+        while (Instant.now().isBefore(deadline)) {
+            if (!app.process().isAlive()) {
+                throw new IllegalStateException("Application exited during startup, see " + app.logFile());
+            }
+            try {
+                counters(app);
+                return;
+            } catch (IOException ex) {
+                Thread.sleep(250);
+            }
+        }
+        throw new IllegalStateException("Application did not start within " + STARTUP_TIMEOUT + ", see " + app.logFile());
+    }
+
+    // ---- Scenarios ----
+
+    private Map<String, IntFunction<HttpRequest>> scenarios(String baseUrl, KeycloakStubServer stub, List<String> userIds)
+            throws IOException, InterruptedException {
+        int sessions = Math.min(SESSIONS, userIds.size());
+        String[] accessTokens = new String[sessions];
+        String[] refreshTokens = new String[sessions];
+        for (int i = 0; i < sessions; i++) {
+            accessTokens[i] = stub.issueAccessToken(userIds.get(i), CLIENT_ID);
+            refreshTokens[i] = login(baseUrl, i);
+        }
+
+        Map<String, IntFunction<HttpRequest>> scenarios = new LinkedHashMap<>();
+        scenarios.put("login", n -> loginRequest(baseUrl, n % userIds.size()));
+        scenarios.put("refresh", n -> HttpRequest.newBuilder(URI.create(baseUrl + "/auth/refresh"))
+                .header("Cookie", JwtCookieAuthenticationFilter.REFRESH_TOKEN_COOKIE + "=" + refreshTokens[n % sessions])
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build());
+        scenarios.put("me", n -> HttpRequest.newBuilder(URI.create(baseUrl + "/auth/me"))
+                .header("Authorization", "Bearer " + accessTokens[n % sessions])
+                .GET()
+                .build());
+        scenarios.put("user-roles", n -> HttpRequest.newBuilder(URI.create(baseUrl + "/auth/users/" + userIds.get(n % sessions) + "/roles"))
+                .header("Authorization", "Bearer " + accessTokens[n % sessions])
+                .GET()
+                .build());
+        return scenarios;
+    }
+
+    private HttpRequest loginRequest(String baseUrl, int user) {
+        String body = "{\"email\":\"%s\",\"password\":\"%s\"}".formatted(email(user), PASSWORD);
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    /**
+     * Log a user in through the application.
+     *
+     * @return the refresh token cookie value
+     */
+    private String login(String baseUrl, int user) throws IOException, InterruptedException {
+        HttpResponse<Void> response = httpClient.send(loginRequest(baseUrl, user), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login of " + email(user) + " failed with status " + response.statusCode());
+        }
+
+        String prefix = JwtCookieAuthenticationFilter.REFRESH_TOKEN_COOKIE + "=";
+        return response.headers().allValues("Set-Cookie").stream()
+                .filter(cookie -> cookie.startsWith(prefix))
+                .map(cookie -> cookie.substring(prefix.length(), cookie.indexOf(';') > 0 ? cookie.indexOf(';') : cookie.length()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Login response has no refresh token cookie"));
+    }
+
+    private static String email(int user) {
+        return "load-user-" + user + "@example.com";
+    }
+
+    // ---- Reporting ----
+
+    private Map<String, Long> counters(ApplicationProcess app) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = httpClient.send(
+                HttpRequest.newBuilder(URI.create(app.baseUrl() + COUNTERS_PATH)).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IOException("Counters endpoint answered " + response.statusCode());
+        }
+
+        Map<String, Long> counters = new HashMap<>();
+        objectMapper.readTree(response.body()).properties()
+                .forEach(entry -> counters.put(entry.getKey(), entry.getValue().asLong()));
+        return counters;
+    }
+
+    private static String formatRow(
+            String mode,
+            String scenario,
+            int rate,
+            ArrivalRateDriver.Result result,
+            Map<String, Long> before,
+            Map<String, Long> after
+    ) {
+        Histogram latencies = result.latencies();
+        long requests = Math.max(1, result.completed());
+        double allocatedKb = (after.get("allocatedBytes") - before.get("allocatedBytes")) / 1024.0 / requests;
+        double cpuMicros = (after.get("cpuNanos") - before.get("cpuNanos")) / 1000.0 / requests;
+
+        return "%-16s %-11s %6d %10.1f %9.2f %9.2f %9.2f %9.2f %7d %8d %11.1f %10.1f".formatted(
+                mode,
+                scenario,
+                rate,
+                result.throughput(),
+                millis(latencies.getValueAtPercentile(50)),
+                millis(latencies.getValueAtPercentile(99)),
+                millis(latencies.getValueAtPercentile(99.9)),
+                millis(latencies.getMaxValue()),
+                result.errors(),
+                result.dropped(),
+                allocatedKb,
+                cpuMicros
+        );
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static void printReport(List<String> rows) {
+        System.out.println();
+        System.out.printf("%-16s %-11s %6s %10s %9s %9s %9s %9s %7s %8s %11s %10s%n",
+                "mode", "scenario", "rate", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms",
+                "errors", "dropped", "alloc KB/req", "cpu us/req");
+        rows.forEach(System.out::println);
+    }
+
+    private static void log(String format, Object... args) {
+        System.out.printf("[load-test] " + format + "%n", args);
+    }
+
+    // ---- Options ----
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        return options;
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return options.containsKey(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+    }
+
+    private List<String> listOption(String name, String defaultValue) {
+        return listOption(name, defaultValue, ",");
+    }
+
+    private List<String> listOption(String name, String defaultValue, String separator) {
+        return Arrays.stream(options.getOrDefault(name, defaultValue).split(separator))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Parse {@code 250ms}, {@code 30s} or an ISO-8601 duration such as {@code PT1M}.
+     */
+    private Duration durationOption(String name, String defaultValue) {
+        String value = options.getOrDefault(name, defaultValue);
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.parse(value);
+    }
+
+    /**
+     * {@link LoadTestApplication} running in a child JVM with the same class path.
+     */
+    private record ApplicationProcess(Process process, String baseUrl, Path logFile) implements AutoCloseable {
+
+        static ApplicationProcess start(String mode, KeycloakStubServer stub, List<String> jvmArgs) throws IOException {
+            int port;
+            try (ServerSocket socket = new ServerSocket(0)) {
+                port = socket.getLocalPort();
+            }
+
+            List<String> command = new ArrayList<>();
+            command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+            command.addAll(jvmArgs);
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(LoadTestApplication.class.getName());
+            command.add("--server.port=" + port);
+            command.add("--spring.main.banner-mode=off");
+            command.add("--logging.level.root=WARN");
+            command.add("--fractalhive.keycloak.server-url=" + stub.getServerUrl());
+            command.add("--fractalhive.keycloak.realm=" + stub.getRealm());
+            command.add("--fractalhive.keycloak.client-id=" + CLIENT_ID);
+            command.add("--fractalhive.keycloak.client-secret=" + CLIENT_SECRET);
+            command.add("--fractalhive.keycloak.execution=" + mode);
+            command.add("--fractalhive.keycloak.public-endpoints=/auth/login,/auth/register,/auth/refresh," + COUNTERS_PATH);
+
+            Path logFile = Path.of(System.getProperty("java.io.tmpdir"), "keycloak-load-test-" + mode + ".log");
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(logFile.toFile())
+                    .start();
+
+            log("started %s application on port %d (log: %s)", mode, port, logFile);
+            return new ApplicationProcess(process, "http://localhost:" + port, logFile);
+        }
+
+        @Override
+        public void close() throws InterruptedException {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.fractalhive.keycloak.benchmarks.load;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+/**
+ * Application under load: the starter with its default configuration, plus an endpoint reporting the
+ * JVM's allocation and CPU counters.
+ * <p>
+ * {@link LoadTest} runs it in a separate JVM, so the counters only cover the application and not the load
+ * generator or the Keycloak stub.
+ * </p>
+ */
+@SpringBootApplication
+public class LoadTestApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(LoadTestApplication.class, args);
+    }
+
+    @RestController
+    static class CountersController {
+
+        private final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        private final com.sun.management.OperatingSystemMXBean os =
+                (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+        @GetMapping(LoadTest.COUNTERS_PATH)
+        Map<String, Long> counters() {
+            return Map.of(
+                    "allocatedBytes", threads.getTotalThreadAllocatedBytes(),
+                    "cpuNanos", os.getProcessCpuTime()
+            );
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.fractalhive.keycloak.stub;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Latency and errors injected into every request the stub serves.
+ * <p>
+ * Settings can be changed while the server is running, for example to degrade the identity provider
+ * halfway through a load test. Each request sleeps for {@link #getLatency()} plus a uniformly distributed
+ * extra delay of up to {@link #getLatencyJitter()}, then fails with {@link #getErrorStatus()} with
+ * probability {@link #getErrorRate()}.
+ * </p>
+ */
+public final class FaultInjection {
+
+    private volatile Duration latency = Duration.ZERO;
+    private volatile Duration latencyJitter = Duration.ZERO;
+    private volatile double errorRate;
+    private volatile int errorStatus = 503;
+
+    public Duration getLatency() {
+        return latency;
+    }
+
+    public FaultInjection setLatency(Duration latency) {
+        this.latency = requireNonNegative(latency, "latency");
+        return this;
+    }
+
+    public Duration getLatencyJitter() {
+        return latencyJitter;
+    }
+
+    public FaultInjection setLatencyJitter(Duration latencyJitter) {
+        this.latencyJitter = requireNonNegative(latencyJitter, "latencyJitter");
+        return this;
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    /**
+     * Fraction of requests, between 0 and 1, that fail with {@link #getErrorStatus()}.
+     */
+    public FaultInjection setErrorRate(double errorRate) {
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("errorRate must be between 0 and 1: " + errorRate);
+        }
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    public int getErrorStatus() {
+        return errorStatus;
+    }
+
+    public FaultInjection setErrorStatus(int errorStatus) {
+        if (errorStatus < 400 || errorStatus > 599) {
+            throw new IllegalArgumentException("errorStatus must be a 4xx or 5xx status: " + errorStatus);
+        }
+        this.errorStatus = errorStatus;
+        return this;
+    }
+
+    /**
+     * Sleep for the configured latency. Runs on a virtual thread, so sleeping doesn't hold a platform thread.
+     */
+    void delay() throws InterruptedException {
+        long nanos = latency.toNanos();
+        long jitterNanos = latencyJitter.toNanos();
+        if (jitterNanos > 0) {
+            nanos += ThreadLocalRandom.current().nextLong(jitterNanos + 1);
+        }
+        if (nanos > 0) {
+            Thread.sleep(Duration.ofNanos(nanos));
+        }
+    }
+
+    /**
+     * Whether the current request should fail.
+     */
+    boolean shouldFail() {
+        double rate = errorRate;
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    private static Duration requireNonNegative(Duration duration, String name) {
+        if (duration == null || duration.isNegative()) {
+            throw new IllegalArgumentException(name + " must not be negative: " + duration);
+        }
+        return duration;
+    }
+}
@@ -0,0 +1,328 @@
+package com.fractalhive.keycloak.stub;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Lightweight stand-in for a Keycloak server, for load and latency tests that run offline.
+ * <p>
+ * Serves the endpoints the starter calls: the token, logout and certs endpoints of every realm, and the
+ * users, clients, roles, client roles, role mappings and composite roles Admin API of one realm. Tokens are real
+ * RS256-signed JWTs carrying Keycloak's claims, so the starter verifies them against the stub's JWK set
+ * exactly as it would against Keycloak. State is kept in memory. Every request runs on a virtual thread
+ * and goes through {@link #getFaults() fault injection}.
+ * </p>
+ * <p>
+ * Point the starter at {@link #getServerUrl()}:
+ * </p>
+ * <pre>
+ * KeycloakStubServer stub = KeycloakStubServer.builder()
+ *         .realm("test")
+ *         .client("test-app", "secret")
+ *         .start();
+ * String userId = stub.createUser("jane@example.com", "password", "Jane", "Doe");
+ * stub.getFaults().setLatency(Duration.ofMillis(20)).setErrorRate(0.01);
+ *
+ * // fractalhive.keycloak.server-url=stub.getServerUrl(), realm=test, client-id=test-app, client-secret=secret
+ * </pre>
+ * <p>
+ * Any realm accepts the client credentials grant, so the admin client can authenticate against
+ * {@code master} as usual.
+ * </p>
+ */
+public final class KeycloakStubServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final String serverUrl;
+    private final StubRealm realm;
+    private final StubHttpHandler handler;
+    private final FaultInjection faults = new FaultInjection();
+
+    private KeycloakStubServer(Builder builder) throws IOException {
+        this.realm = new StubRealm(builder.realm);
+        builder.clients.keySet().forEach(realm::registerClient);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(builder.host, builder.port), builder.backlog);
+        this.serverUrl = "http://" + builder.host + ":" + server.getAddress().getPort();
+        this.handler = new StubHttpHandler(
+                realm,
+                new StubTokenIssuer(),
+                faults,
+                Map.copyOf(builder.clients),
+                builder.accessTokenLifespan,
+                builder.refreshTokenLifespan,
+                () -> serverUrl
+        );
+
+        server.createContext("/", handler);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Base URL to use as {@code fractalhive.keycloak.server-url}, e.g. {@code http://localhost:41234}.
+     */
+    public String getServerUrl() {
+        return serverUrl;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Name of the realm that holds users and roles.
+     */
+    public String getRealm() {
+        return realm.getName();
+    }
+
+    /**
+     * Latency and errors injected into requests; can be changed at any time.
+     */
+    public FaultInjection getFaults() {
+        return faults;
+    }
+
+    /**
+     * Requests served so far per endpoint, keyed by method and path template.
+     */
+    public Map<String, Long> getRequestCounts() {
+        return handler.getRequestCounts();
+    }
+
+    /**
+     * Create an enabled user whose username is its email.
+     *
+     * @return the new user's id
+     */
+    public String createUser(String email, String password, String firstName, String lastName) {
+        return realm.createUser(email, password, firstName, lastName).id();
+    }
+
+    /**
+     * @return the new role's id
+     */
+    public String createRealmRole(String roleName) {
+        return realm.createRealmRole(roleName, "").id();
+    }
+
+    /**
+     * @return the new role's id
+     */
+    public String createClientRole(String clientId, String roleName) {
+        return realm.createClientRole(clientId, roleName, "").id();
+    }
+
+    /**
+     * Make a realm role composite by adding other realm roles to it.
+     */
+    public void addComposites(String roleName, String... subRoleNames) {
+        List<String> roleIds = new ArrayList<>();
+        for (String subRoleName : subRoleNames) {
+            roleIds.add(realm.getRealmRole(subRoleName).id());
+        }
+        realm.addComposites(roleName, roleIds);
+    }
+
+    public void assignRealmRoles(String userId, String... roleNames) {
+        List<String> roleIds = new ArrayList<>();
+        for (String roleName : roleNames) {
+            roleIds.add(realm.getRealmRole(roleName).id());
+        }
+        realm.addRealmMappings(userId, roleIds);
+    }
+
+    public void assignClientRoles(String userId, String clientId, String... roleNames) {
+        List<String> roleIds = new ArrayList<>();
+        for (String roleName : roleNames) {
+            roleIds.add(realm.getClientRole(clientId, roleName).id());
+        }
+        realm.addClientMappings(userId, clientId, roleIds);
+    }
+
+    /**
+     * Issue an access token for a user without a password grant, e.g. to drive authenticated endpoints.
+     */
+    public String issueAccessToken(String userId, String clientId) {
+        return handler.issueAccessToken(realm.getUser(userId), clientId);
+    }
+
+    /**
+     * Stop the server, waiting briefly for in-flight requests.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Run the stub as a standalone server until the process is stopped.
+     * <p>
+     * Options, all optional: {@code --port=8180 --host=localhost --realm=test --client-id=test-app
+     * --client-secret=secret --latency=20ms --latency-jitter=10ms --error-rate=0.01 --error-status=503
+     * --users=100 --roles=10}. With {@code --users=N}, users {@code user-1@example.com} through
+     * {@code user-N@example.com} are created with password {@code password}, each holding the realm roles
+     * {@code role-1} through {@code role-M} and the same-named client roles of {@code --client-id}
+     * (with {@code --roles=M}).
+     * </p>
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = parseOptions(args);
+        String clientId = options.getOrDefault("client-id", "test-app");
+
+        Builder builder = builder()
+                .host(options.getOrDefault("host", "localhost"))
+                .port(Integer.parseInt(options.getOrDefault("port", "8180")))
+                .realm(options.getOrDefault("realm", "test"));
+        if (options.containsKey("client-secret")) {
+            builder.client(clientId, options.get("client-secret"));
+        }
+
+        KeycloakStubServer stub = builder.start();
+        stub.getFaults()
+                .setLatency(parseDuration(options.getOrDefault("latency", "0ms")))
+                .setLatencyJitter(parseDuration(options.getOrDefault("latency-jitter", "0ms")))
+                .setErrorRate(Double.parseDouble(options.getOrDefault("error-rate", "0")))
+                .setErrorStatus(Integer.parseInt(options.getOrDefault("error-status", "503")));
+
+        int roleCount = Integer.parseInt(options.getOrDefault("roles", "0"));
+        String[] roleNames = new String[roleCount];
+        for (int i = 0; i < roleCount; i++) {
+            roleNames[i] = "role-" + (i + 1);
+            stub.createRealmRole(roleNames[i]);
+            stub.createClientRole(clientId, roleNames[i]);
+        }
+
+        int userCount = Integer.parseInt(options.getOrDefault("users", "0"));
+        for (int i = 1; i <= userCount; i++) {
+            String userId = stub.createUser("user-" + i + "@example.com", "password", "User", String.valueOf(i));
+            if (roleCount > 0) {
+                stub.assignRealmRoles(userId, roleNames);
+                stub.assignClientRoles(userId, clientId, roleNames);
+            }
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(stub::close));
+        System.out.printf("Keycloak stub listening on %s (realm '%s', %d users, %d roles)%n",
+                stub.getServerUrl(), stub.getRealm(), userCount, roleCount);
+        new CountDownLatch(1).await();
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    /**
+     * Parse {@code 250ms}, {@code 2s} or an ISO-8601 duration such as {@code PT0.25S}.
+     */
+    private static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.parse(value);
+    }
+
+    /**
+     * Builder for {@link KeycloakStubServer}.
+     */
+    public static final class Builder {
+
+        private String host = "localhost";
+        private int port;
+        private int backlog = 1024;
+        private String realm = "test";
+        private final Map<String, String> clients = new LinkedHashMap<>();
+        private Duration accessTokenLifespan = Duration.ofMinutes(5);
+        private Duration refreshTokenLifespan = Duration.ofMinutes(30);
+
+        private Builder() {
+        }
+
+        public Builder host(String host) {
+            this.host = host;
+            return this;
+        }
+
+        /**
+         * Port to listen on; {@code 0}, the default, picks a free port.
+         */
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * Maximum number of queued incoming connections.
+         */
+        public Builder backlog(int backlog) {
+            this.backlog = backlog;
+            return this;
+        }
+
+        /**
+         * Realm holding the users and roles (default: {@code test}).
+         */
+        public Builder realm(String realm) {
+            this.realm = realm;
+            return this;
+        }
+
+        /**
+         * Register a confidential client. Without registered clients, any client id and secret is accepted.
+         */
+        public Builder client(String clientId, String clientSecret) {
+            clients.put(clientId, clientSecret);
+            return this;
+        }
+
+        public Builder accessTokenLifespan(Duration accessTokenLifespan) {
+            this.accessTokenLifespan = accessTokenLifespan;
+            return this;
+        }
+
+        public Builder refreshTokenLifespan(Duration refreshTokenLifespan) {
+            this.refreshTokenLifespan = refreshTokenLifespan;
+            return this;
+        }
+
+        /**
+         * Start the server.
+         */
+        public KeycloakStubServer start() {
+            try {
+                return new KeycloakStubServer(this);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Failed to start the Keycloak stub on " + host + ":" + port, ex);
+            }
+        }
+    }
+}
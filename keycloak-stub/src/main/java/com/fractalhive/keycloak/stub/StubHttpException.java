@@ -0,0 +1,47 @@
+package com.fractalhive.keycloak.stub;
+
+/**
+ * Error answered to the client with the given HTTP status.
+ * <p>
+ * OpenID Connect endpoints answer {@code {"error": ..., "error_description": message}}, Admin API endpoints
+ * answer {@code {"errorMessage": message}}.
+ * </p>
+ */
+final class StubHttpException extends RuntimeException {
+
+    private final int status;
+    private final String error;
+
+    StubHttpException(int status, String message) {
+        this(status, null, message);
+    }
+
+    StubHttpException(int status, String error, String message) {
+        super(message, null, false, false);
+        this.status = status;
+        this.error = error;
+    }
+
+    int getStatus() {
+        return status;
+    }
+
+    /**
+     * OAuth error code, or {@code null} to derive one from the status.
+     */
+    String getError() {
+        return error;
+    }
+
+    static StubHttpException notFound(String message) {
+        return new StubHttpException(404, message);
+    }
+
+    static StubHttpException conflict(String message) {
+        return new StubHttpException(409, message);
+    }
+
+    static StubHttpException badRequest(String message) {
+        return new StubHttpException(400, message);
+    }
+}
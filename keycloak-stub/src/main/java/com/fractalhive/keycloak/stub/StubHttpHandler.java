@@ -0,0 +1,706 @@
+package com.fractalhive.keycloak.stub;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Routes stub requests to the OpenID Connect and Admin API endpoints the starter calls.
+ */
+final class StubHttpHandler implements HttpHandler {
+
+    private static final String OIDC = "/realms/{realm}/protocol/openid-connect";
+    private static final String ADMIN = "/admin/realms/{realm}";
+    private static final TypeReference<Map<String, Object>> OBJECT = new TypeReference<>() {
+    };
+    private static final TypeReference<List<Map<String, Object>>> ARRAY = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Route> routes = new ArrayList<>();
+    private final Map<String, LongAdder> requestCounts = new ConcurrentHashMap<>();
+    private final Map<String, String> sessions = new ConcurrentHashMap<>();
+
+    private final StubRealm realm;
+    private final StubTokenIssuer tokenIssuer;
+    private final FaultInjection faults;
+    private final Map<String, String> clients;
+    private final Duration accessTokenLifespan;
+    private final Duration refreshTokenLifespan;
+    private final Supplier<String> serverUrl;
+
+    StubHttpHandler(
+            StubRealm realm,
+            StubTokenIssuer tokenIssuer,
+            FaultInjection faults,
+            Map<String, String> clients,
+            Duration accessTokenLifespan,
+            Duration refreshTokenLifespan,
+            Supplier<String> serverUrl
+    ) {
+        this.realm = realm;
+        this.tokenIssuer = tokenIssuer;
+        this.faults = faults;
+        this.clients = clients;
+        this.accessTokenLifespan = accessTokenLifespan;
+        this.refreshTokenLifespan = refreshTokenLifespan;
+        this.serverUrl = serverUrl;
+
+        route("GET", "/realms/{realm}/.well-known/openid-configuration", this::discovery);
+        route("GET", OIDC + "/certs", request -> StubResponse.ok(tokenIssuer.getJwkSet()));
+        route("POST", OIDC + "/token", this::token);
+        route("POST", OIDC + "/logout", this::logout);
+
+        route("GET", ADMIN + "/users", this::findUsers);
+        route("POST", ADMIN + "/users", this::createUser);
+        route("GET", ADMIN + "/users/{userId}", request -> StubResponse.ok(user(request).toRepresentation()));
+        route("PUT", ADMIN + "/users/{userId}", request -> {
+            realm.updateUser(request.variable("userId"), request.jsonObject());
+            return StubResponse.noContent();
+        });
+        route("DELETE", ADMIN + "/users/{userId}", request -> {
+            realm.deleteUser(request.variable("userId"));
+            return StubResponse.noContent();
+        });
+        route("PUT", ADMIN + "/users/{userId}/reset-password", request -> {
+            Object password = request.jsonObject().get("value");
+            realm.resetPassword(request.variable("userId"), password != null ? password.toString() : null);
+            return StubResponse.noContent();
+        });
+        route("PUT", ADMIN + "/users/{userId}/execute-actions-email", request -> {
+            user(request);
+            return StubResponse.noContent();
+        });
+        route("PUT", ADMIN + "/users/{userId}/send-verify-email", request -> {
+            user(request);
+            return StubResponse.noContent();
+        });
+
+        route("GET", ADMIN + "/users/{userId}/role-mappings", this::roleMappings);
+        route("GET", ADMIN + "/users/{userId}/role-mappings/realm", request ->
+                StubResponse.ok(roles(realm.getRealmMappings(request.variable("userId")), false)));
+        route("POST", ADMIN + "/users/{userId}/role-mappings/realm", request -> {
+            realm.addRealmMappings(request.variable("userId"), request.roleIds());
+            return StubResponse.noContent();
+        });
+        route("DELETE", ADMIN + "/users/{userId}/role-mappings/realm", request -> {
+            realm.removeRealmMappings(request.variable("userId"), request.roleIds());
+            return StubResponse.noContent();
+        });
+        route("GET", ADMIN + "/users/{userId}/role-mappings/realm/composite", request ->
+                StubResponse.ok(roles(realm.getEffectiveRealmRoles(request.variable("userId")), false)));
+        route("GET", ADMIN + "/users/{userId}/role-mappings/clients/{clientUuid}", request ->
+                StubResponse.ok(roles(realm.getClientMappings(request.variable("userId"), clientId(request)), false)));
+        route("POST", ADMIN + "/users/{userId}/role-mappings/clients/{clientUuid}", request -> {
+            realm.addClientMappings(request.variable("userId"), clientId(request), request.roleIds());
+            return StubResponse.noContent();
+        });
+        route("DELETE", ADMIN + "/users/{userId}/role-mappings/clients/{clientUuid}", request -> {
+            realm.removeClientMappings(request.variable("userId"), clientId(request), request.roleIds());
+            return StubResponse.noContent();
+        });
+        // Client roles can't be composite in the stub, so the effective client roles are the direct ones
+        route("GET", ADMIN + "/users/{userId}/role-mappings/clients/{clientUuid}/composite", request ->
+                StubResponse.ok(roles(realm.getClientMappings(request.variable("userId"), clientId(request)), false)));
+
+        route("GET", ADMIN + "/roles", request -> listRoles(request, realm.listRealmRoles(request.query("search"))));
+        route("POST", ADMIN + "/roles", request -> {
+            Map<String, Object> role = request.jsonObject();
+            realm.createRealmRole(stringValue(role.get("name")), stringValue(role.get("description")));
+            return StubResponse.created(request.uri() + "/" + role.get("name"));
+        });
+        route("GET", ADMIN + "/roles/{roleName}", request ->
+                StubResponse.ok(role(realm.getRealmRole(request.variable("roleName")), false)));
+        route("PUT", ADMIN + "/roles/{roleName}", request -> {
+            Map<String, Object> role = request.jsonObject();
+            realm.updateRealmRole(request.variable("roleName"), stringValue(role.get("name")), stringValue(role.get("description")));
+            return StubResponse.noContent();
+        });
+        route("DELETE", ADMIN + "/roles/{roleName}", request -> {
+            realm.deleteRealmRole(request.variable("roleName"));
+            return StubResponse.noContent();
+        });
+        route("GET", ADMIN + "/roles/{roleName}/composites", request ->
+                StubResponse.ok(roles(realm.getComposites(request.variable("roleName")), false)));
+        route("POST", ADMIN + "/roles/{roleName}/composites", request -> {
+            realm.addComposites(request.variable("roleName"), request.roleIds());
+            return StubResponse.noContent();
+        });
+        route("DELETE", ADMIN + "/roles/{roleName}/composites", request -> {
+            realm.removeComposites(request.variable("roleName"), request.roleIds());
+            return StubResponse.noContent();
+        });
+
+        route("GET", ADMIN + "/clients", this::findClients);
+        route("GET", ADMIN + "/clients/{clientUuid}/roles", request ->
+                listRoles(request, realm.listClientRoles(clientId(request), request.query("search"))));
+        route("POST", ADMIN + "/clients/{clientUuid}/roles", request -> {
+            Map<String, Object> role = request.jsonObject();
+            realm.createClientRole(clientId(request), stringValue(role.get("name")), stringValue(role.get("description")));
+            return StubResponse.created(request.uri() + "/" + role.get("name"));
+        });
+        route("GET", ADMIN + "/clients/{clientUuid}/roles/{roleName}", request ->
+                StubResponse.ok(role(realm.getClientRole(clientId(request), request.variable("roleName")), false)));
+        route("PUT", ADMIN + "/clients/{clientUuid}/roles/{roleName}", request -> {
+            Map<String, Object> role = request.jsonObject();
+            realm.updateClientRole(clientId(request), request.variable("roleName"),
+                    stringValue(role.get("name")), stringValue(role.get("description")));
+            return StubResponse.noContent();
+        });
+        route("DELETE", ADMIN + "/clients/{clientUuid}/roles/{roleName}", request -> {
+            realm.deleteClientRole(clientId(request), request.variable("roleName"));
+            return StubResponse.noContent();
+        });
+    }
+
+    /**
+     * Requests served per route, keyed by method and path template, e.g. {@code POST /realms/{realm}/...}.
+     */
+    Map<String, Long> getRequestCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        requestCounts.forEach((route, count) -> counts.put(route, count.sum()));
+        return counts;
+    }
+
+    /**
+     * Issue an access token for a user, as the password grant does, without going through HTTP.
+     */
+    String issueAccessToken(StubRealm.StubUser user, String clientId) {
+        return tokenIssuer.sign("Bearer", userClaims(user, clientId, UUID.randomUUID().toString()), accessTokenLifespan);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            StubResponse response;
+            try {
+                response = dispatch(exchange);
+            } catch (StubHttpException ex) {
+                response = error(exchange, ex.getStatus(), ex.getError(), ex.getMessage());
+            } catch (JsonProcessingException ex) {
+                response = error(exchange, 400, null, "Unreadable request body: " + ex.getOriginalMessage());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                response = error(exchange, 500, null, ex.toString());
+            }
+            write(exchange, response);
+        }
+    }
+
+    private StubResponse dispatch(HttpExchange exchange) throws IOException, InterruptedException {
+        String method = exchange.getRequestMethod();
+        List<String> segments = decodeSegments(exchange.getRequestURI().getRawPath());
+
+        for (Route route : routes) {
+            Map<String, String> variables = route.match(method, segments);
+            if (variables == null) {
+                continue;
+            }
+
+            requestCounts.computeIfAbsent(route.name(), name -> new LongAdder()).increment();
+            faults.delay();
+            if (faults.shouldFail()) {
+                return error(exchange, faults.getErrorStatus(), null, "Injected failure");
+            }
+
+            StubRequest request = new StubRequest(exchange, variables);
+            if (route.template().startsWith(ADMIN)) {
+                authorizeAdmin(request);
+            }
+            return route.handler().handle(request);
+        }
+
+        throw StubHttpException.notFound("Unable to find matching target resource method");
+    }
+
+    // ---- OpenID Connect ----
+
+    private StubResponse discovery(StubRequest request) {
+        String issuer = issuer(request.variable("realm"));
+        String endpoint = issuer + "/protocol/openid-connect";
+
+        Map<String, Object> configuration = new LinkedHashMap<>();
+        configuration.put("issuer", issuer);
+        configuration.put("token_endpoint", endpoint + "/token");
+        configuration.put("end_session_endpoint", endpoint + "/logout");
+        configuration.put("jwks_uri", endpoint + "/certs");
+        configuration.put("grant_types_supported", List.of("password", "refresh_token", "client_credentials"));
+        configuration.put("id_token_signing_alg_values_supported", List.of("RS256"));
+        return StubResponse.ok(configuration);
+    }
+
+    private StubResponse token(StubRequest request) throws IOException {
+        Map<String, String> form = request.form();
+        String clientId = authenticateClient(form);
+        String grantType = form.getOrDefault("grant_type", "");
+
+        return switch (grantType) {
+            case "password" -> {
+                requireUserRealm(request);
+                StubRealm.StubUser user = realm.authenticate(form.get("username"), form.get("password"));
+                if (user == null) {
+                    throw oauthError(401, "invalid_grant", "Invalid user credentials");
+                }
+                yield StubResponse.ok(userTokens(user, clientId, UUID.randomUUID().toString()));
+            }
+            case "refresh_token" -> {
+                requireUserRealm(request);
+                JWTClaimsSet refreshToken = verifyRefreshToken(form.get("refresh_token"), clientId);
+                String sessionId = stringValue(refreshToken.getClaim("sid"));
+                StubRealm.StubUser user = realm.getUser(refreshToken.getSubject());
+                yield StubResponse.ok(userTokens(user, clientId, sessionId));
+            }
+            case "client_credentials" -> StubResponse.ok(serviceAccountToken(request.variable("realm"), clientId));
+            default -> throw oauthError(400, "unsupported_grant_type", "Unsupported grant_type");
+        };
+    }
+
+    private StubResponse logout(StubRequest request) throws IOException {
+        Map<String, String> form = request.form();
+        String clientId = authenticateClient(form);
+        requireUserRealm(request);
+
+        JWTClaimsSet refreshToken = verifyRefreshToken(form.get("refresh_token"), clientId);
+        sessions.remove(stringValue(refreshToken.getClaim("sid")));
+        return StubResponse.noContent();
+    }
+
+    private Map<String, Object> userTokens(StubRealm.StubUser user, String clientId, String sessionId) {
+        sessions.put(sessionId, user.id());
+
+        Map<String, Object> refreshClaims = new LinkedHashMap<>();
+        refreshClaims.put("iss", issuer(realm.getName()));
+        refreshClaims.put("aud", issuer(realm.getName()));
+        refreshClaims.put("sub", user.id());
+        refreshClaims.put("azp", clientId);
+        refreshClaims.put("sid", sessionId);
+
+        Map<String, Object> tokens = new LinkedHashMap<>();
+        tokens.put("access_token", tokenIssuer.sign("Bearer", userClaims(user, clientId, sessionId), accessTokenLifespan));
+        tokens.put("expires_in", (int) accessTokenLifespan.toSeconds());
+        tokens.put("refresh_expires_in", (int) refreshTokenLifespan.toSeconds());
+        tokens.put("refresh_token", tokenIssuer.sign("Refresh", refreshClaims, refreshTokenLifespan));
+        tokens.put("token_type", "Bearer");
+        tokens.put("not-before-policy", 0);
+        tokens.put("session_state", sessionId);
+        tokens.put("scope", "openid email profile");
+        return tokens;
+    }
+
+    private Map<String, Object> userClaims(StubRealm.StubUser user, String clientId, String sessionId) {
+        Map<String, Object> resourceAccess = new LinkedHashMap<>();
+        for (String client : realm.getMappedClients(user.id())) {
+            List<String> clientRoles = roleNames(realm.getClientMappings(user.id(), client));
+            if (!clientRoles.isEmpty()) {
+                resourceAccess.put(client, Map.of("roles", clientRoles));
+            }
+        }
+        resourceAccess.put("account", Map.of("roles", List.of("manage-account", "view-profile")));
+
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("iss", issuer(realm.getName()));
+        claims.put("aud", List.of(clientId, "account"));
+        claims.put("sub", user.id());
+        claims.put("azp", clientId);
+        claims.put("sid", sessionId);
+        claims.put("session_state", sessionId);
+        claims.put("scope", "openid email profile");
+        claims.put("realm_access", Map.of("roles", roleNames(realm.getEffectiveRealmRoles(user.id()))));
+        claims.put("resource_access", resourceAccess);
+        claims.put("email_verified", user.emailVerified());
+        claims.put("name", (user.firstName() + " " + user.lastName()).trim());
+        claims.put("preferred_username", user.email());
+        claims.put("given_name", user.firstName());
+        claims.put("family_name", user.lastName());
+        claims.put("email", user.email());
+        return claims;
+    }
+
+    private Map<String, Object> serviceAccountToken(String realmName, String clientId) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("iss", issuer(realmName));
+        claims.put("aud", List.of("realm-management", "account"));
+        claims.put("sub", "service-account-" + clientId);
+        claims.put("azp", clientId);
+        claims.put("scope", "email profile");
+        claims.put("resource_access", Map.of("realm-management", Map.of("roles",
+                List.of("manage-users", "view-users", "manage-realm", "view-realm", "query-users"))));
+        claims.put("preferred_username", "service-account-" + clientId);
+
+        Map<String, Object> token = new LinkedHashMap<>();
+        token.put("access_token", tokenIssuer.sign("Bearer", claims, accessTokenLifespan));
+        token.put("expires_in", (int) accessTokenLifespan.toSeconds());
+        token.put("refresh_expires_in", 0);
+        token.put("token_type", "Bearer");
+        token.put("not-before-policy", 0);
+        token.put("scope", "email profile");
+        return token;
+    }
+
+    private String authenticateClient(Map<String, String> form) {
+        String clientId = form.get("client_id");
+        if (clientId == null) {
+            throw oauthError(401, "invalid_client", "Missing client_id");
+        }
+
+        // Without registered clients, any client id and secret is accepted
+        if (!clients.isEmpty()) {
+            String secret = clients.get(clientId);
+            if (secret == null || !secret.equals(form.get("client_secret"))) {
+                throw oauthError(401, "unauthorized_client", "Invalid client or Invalid client credentials");
+            }
+        }
+        return clientId;
+    }
+
+    private JWTClaimsSet verifyRefreshToken(String token, String clientId) {
+        JWTClaimsSet claims = token != null ? tokenIssuer.verify(token) : null;
+        if (claims == null
+                || !"Refresh".equals(claims.getClaim("typ"))
+                || !clientId.equals(claims.getClaim("azp"))
+                || !sessions.containsKey(stringValue(claims.getClaim("sid")))) {
+            throw oauthError(400, "invalid_grant", "Invalid refresh token");
+        }
+        return claims;
+    }
+
+    private void requireUserRealm(StubRequest request) {
+        if (!realm.getName().equals(request.variable("realm"))) {
+            throw oauthError(400, "invalid_grant", "Realm has no users: " + request.variable("realm"));
+        }
+    }
+
+    private void authorizeAdmin(StubRequest request) {
+        if (!realm.getName().equals(request.variable("realm"))) {
+            throw StubHttpException.notFound("Realm not found.");
+        }
+
+        String authorization = request.exchange().getRequestHeaders().getFirst("Authorization");
+        if (authorization == null
+                || !authorization.regionMatches(true, 0, "Bearer ", 0, 7)
+                || tokenIssuer.verify(authorization.substring(7)) == null) {
+            throw new StubHttpException(401, "HTTP 401 Unauthorized");
+        }
+    }
+
+    private String issuer(String realmName) {
+        return serverUrl.get() + "/realms/" + realmName;
+    }
+
+    // ---- Admin API ----
+
+    private StubResponse findUsers(StubRequest request) {
+        String email = request.query("email");
+        if (email != null && Boolean.parseBoolean(request.query("exact"))) {
+            StubRealm.StubUser user = realm.findUserByEmail(email);
+            return StubResponse.ok(user != null ? List.of(user.toRepresentation()) : List.of());
+        }
+
+        throw StubHttpException.badRequest("The stub only supports exact user lookups by email");
+    }
+
+    private StubResponse createUser(StubRequest request) throws IOException {
+        Map<String, Object> representation = request.jsonObject();
+        String password = null;
+        if (representation.get("credentials") instanceof List<?> credentials && !credentials.isEmpty()
+                && credentials.get(0) instanceof Map<?, ?> credential) {
+            password = stringValue(credential.get("value"));
+        }
+
+        StubRealm.StubUser user = realm.createUser(
+                stringValue(representation.get("email")),
+                password,
+                stringValue(representation.getOrDefault("firstName", "")),
+                stringValue(representation.getOrDefault("lastName", ""))
+        );
+        return StubResponse.created(request.uri() + "/" + user.id());
+    }
+
+    private StubResponse findClients(StubRequest request) {
+        String clientId = request.query("clientId");
+        if (clientId == null) {
+            throw StubHttpException.badRequest("The stub only supports client lookups by clientId");
+        }
+
+        String clientUuid = realm.findClientUuid(clientId);
+        return StubResponse.ok(clientUuid != null
+                ? List.of(Map.of("id", clientUuid, "clientId", clientId))
+                : List.of());
+    }
+
+    private StubResponse roleMappings(StubRequest request) {
+        String userId = request.variable("userId");
+
+        Map<String, Object> mappings = new LinkedHashMap<>();
+        List<StubRealm.StubRole> realmRoles = realm.getRealmMappings(userId);
+        if (!realmRoles.isEmpty()) {
+            mappings.put("realmMappings", roles(realmRoles, false));
+        }
+
+        Map<String, Object> clientMappings = new LinkedHashMap<>();
+        for (String clientId : realm.getMappedClients(userId)) {
+            List<StubRealm.StubRole> clientRoles = realm.getClientMappings(userId, clientId);
+            if (!clientRoles.isEmpty()) {
+                clientMappings.put(clientId, Map.of(
+                        "id", realm.findClientUuid(clientId),
+                        "client", clientId,
+                        "mappings", roles(clientRoles, false)
+                ));
+            }
+        }
+        if (!clientMappings.isEmpty()) {
+            mappings.put("clientMappings", clientMappings);
+        }
+        return StubResponse.ok(mappings);
+    }
+
+    private StubResponse listRoles(StubRequest request, List<StubRealm.StubRole> roles) {
+        int first = Math.min(request.intQuery("first", 0), roles.size());
+        int max = request.intQuery("max", roles.size());
+        boolean brief = !"false".equals(request.query("briefRepresentation"));
+        return StubResponse.ok(roles(roles.subList(first, Math.min(roles.size(), first + max)), brief));
+    }
+
+    /**
+     * {@code client-id} of the client whose internal id is in the request path.
+     */
+    private String clientId(StubRequest request) {
+        return realm.getClientId(request.variable("clientUuid"));
+    }
+
+    private StubRealm.StubUser user(StubRequest request) {
+        return realm.getUser(request.variable("userId"));
+    }
+
+    private List<Map<String, Object>> roles(Collection<StubRealm.StubRole> roles, boolean brief) {
+        List<Map<String, Object>> representations = new ArrayList<>(roles.size());
+        for (StubRealm.StubRole role : roles) {
+            representations.add(role(role, brief));
+        }
+        return representations;
+    }
+
+    private Map<String, Object> role(StubRealm.StubRole role, boolean brief) {
+        Map<String, Object> representation = new LinkedHashMap<>();
+        representation.put("id", role.id());
+        representation.put("name", role.name());
+        representation.put("description", role.description());
+        representation.put("composite", realm.isComposite(role));
+        representation.put("clientRole", role.clientId() != null);
+        representation.put("containerId", role.clientId() != null ? realm.findClientUuid(role.clientId()) : realm.getName());
+        if (!brief) {
+            representation.put("attributes", Map.of());
+        }
+        return representation;
+    }
+
+    private static List<String> roleNames(List<StubRealm.StubRole> roles) {
+        return roles.stream().map(StubRealm.StubRole::name).toList();
+    }
+
+    // ---- HTTP plumbing ----
+
+    private void route(String method, String template, RouteHandler handler) {
+        routes.add(new Route(method, template, List.of(template.substring(1).split("/")), handler));
+    }
+
+    private StubResponse error(HttpExchange exchange, int status, String error, String message) {
+        Map<String, Object> body;
+        if (exchange.getRequestURI().getPath().startsWith("/admin/")) {
+            body = Map.of("errorMessage", message);
+        } else {
+            String code = error != null ? error : status >= 500 ? "server_error" : "invalid_request";
+            body = Map.of("error", code, "error_description", message);
+        }
+        return new StubResponse(status, body, null);
+    }
+
+    private static StubHttpException oauthError(int status, String error, String description) {
+        return new StubHttpException(status, error, description);
+    }
+
+    private void write(HttpExchange exchange, StubResponse response) throws IOException {
+        Object body = response.body();
+        if (response.location() != null) {
+            exchange.getResponseHeaders().set("Location", response.location());
+        }
+
+        if (body == null) {
+            exchange.sendResponseHeaders(response.status(), -1);
+            return;
+        }
+
+        byte[] json = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(response.status(), json.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(json);
+        }
+    }
+
+    private static List<String> decodeSegments(String rawPath) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : rawPath.substring(1).split("/")) {
+            segments.add(URLDecoder.decode(segment.replace("+", "%2B"), StandardCharsets.UTF_8));
+        }
+        return segments;
+    }
+
+    private static Map<String, String> parseParameters(String encoded) {
+        Map<String, String> parameters = new HashMap<>();
+        if (encoded == null || encoded.isEmpty()) {
+            return parameters;
+        }
+
+        for (String pair : encoded.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals >= 0 ? pair.substring(0, equals) : pair, StandardCharsets.UTF_8);
+            String value = equals >= 0 ? URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8) : "";
+            parameters.putIfAbsent(name, value);
+        }
+        return parameters;
+    }
+
+    private static String stringValue(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    @FunctionalInterface
+    private interface RouteHandler {
+
+        StubResponse handle(StubRequest request) throws IOException;
+    }
+
+    private record Route(String method, String template, List<String> segments, RouteHandler handler) {
+
+        String name() {
+            return method + " " + template;
+        }
+
+        /**
+         * @return the path variables, or {@code null} if the request doesn't match this route
+         */
+        Map<String, String> match(String requestMethod, List<String> requestSegments) {
+            if (!method.equals(requestMethod) || segments.size() != requestSegments.size()) {
+                return null;
+            }
+
+            Map<String, String> variables = new HashMap<>(4);
+            for (int i = 0; i < segments.size(); i++) {
+                String segment = segments.get(i);
+                if (segment.startsWith("{")) {
+                    variables.put(segment.substring(1, segment.length() - 1), requestSegments.get(i));
+                } else if (!segment.equals(requestSegments.get(i))) {
+                    return null;
+                }
+            }
+            return variables;
+        }
+    }
+
+    private final class StubRequest {
+
+        private final HttpExchange exchange;
+        private final Map<String, String> variables;
+        private Map<String, String> query;
+
+        StubRequest(HttpExchange exchange, Map<String, String> variables) {
+            this.exchange = exchange;
+            this.variables = variables;
+        }
+
+        HttpExchange exchange() {
+            return exchange;
+        }
+
+        String uri() {
+            return serverUrl.get() + exchange.getRequestURI().getRawPath();
+        }
+
+        String variable(String name) {
+            return variables.get(name);
+        }
+
+        String query(String name) {
+            if (query == null) {
+                query = parseParameters(exchange.getRequestURI().getRawQuery());
+            }
+            return query.get(name);
+        }
+
+        int intQuery(String name, int defaultValue) {
+            String value = query(name);
+            try {
+                return value != null ? Math.max(0, Integer.parseInt(value)) : defaultValue;
+            } catch (NumberFormatException ex) {
+                throw StubHttpException.badRequest("Invalid " + name + ": " + value);
+            }
+        }
+
+        Map<String, String> form() throws IOException {
+            return parseParameters(new String(body(), StandardCharsets.UTF_8));
+        }
+
+        Map<String, Object> jsonObject() throws IOException {
+            return objectMapper.readValue(body(), OBJECT);
+        }
+
+        /**
+         * Ids of the roles in a role representation array body.
+         */
+        List<String> roleIds() throws IOException {
+            List<String> ids = new ArrayList<>();
+            for (Map<String, Object> role : objectMapper.readValue(body(), ARRAY)) {
+                Object id = role.get("id");
+                if (id == null) {
+                    throw StubHttpException.badRequest("Role id is required");
+                }
+                ids.add(id.toString());
+            }
+            return ids;
+        }
+
+        private byte[] body() throws IOException {
+            try (InputStream in = exchange.getRequestBody()) {
+                return in.readAllBytes();
+            }
+        }
+    }
+
+    private record StubResponse(int status, Object body, String location) {
+
+        static StubResponse ok(Object body) {
+            return new StubResponse(200, body, null);
+        }
+
+        static StubResponse created(String location) {
+            return new StubResponse(201, null, location);
+        }
+
+        static StubResponse noContent() {
+            return new StubResponse(204, null, null);
+        }
+    }
+}
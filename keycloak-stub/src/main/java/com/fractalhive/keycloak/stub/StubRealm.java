@@ -0,0 +1,427 @@
+package com.fractalhive.keycloak.stub;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory users, roles, composite roles and role mappings of the stubbed realm.
+ * <p>
+ * Clients are known by their OAuth {@code client-id} here; as in Keycloak, each client also gets a
+ * generated internal id, which the Admin API client paths take. Composite roles may only contain realm
+ * roles.
+ * </p>
+ */
+final class StubRealm {
+
+    private final String name;
+
+    private final Map<String, String> clientUuids = new ConcurrentHashMap<>();
+    private final Map<String, String> clientIdsByUuid = new ConcurrentHashMap<>();
+
+    private final Map<String, StubUser> users = new ConcurrentHashMap<>();
+    private final Map<String, String> userIdsByEmail = new ConcurrentHashMap<>();
+
+    private final Map<String, StubRole> realmRoles = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, StubRole>> clientRoles = new ConcurrentHashMap<>();
+    private final Map<String, StubRole> rolesById = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> composites = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<String>> realmMappings = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Set<String>>> clientMappings = new ConcurrentHashMap<>();
+
+    StubRealm(String name) {
+        this.name = name;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    // ---- Clients ----
+
+    /**
+     * Register a client, if it isn't known yet.
+     *
+     * @return the client's internal id
+     */
+    String registerClient(String clientId) {
+        return clientUuids.computeIfAbsent(clientId, id -> {
+            String uuid = UUID.randomUUID().toString();
+            clientIdsByUuid.put(uuid, id);
+            return uuid;
+        });
+    }
+
+    /**
+     * @return the internal id of a client, or {@code null} if it isn't known
+     */
+    String findClientUuid(String clientId) {
+        return clientUuids.get(clientId);
+    }
+
+    /**
+     * @return the {@code client-id} of the client with the given internal id
+     */
+    String getClientId(String clientUuid) {
+        String clientId = clientIdsByUuid.get(clientUuid);
+        if (clientId == null) {
+            throw StubHttpException.notFound("Could not find client");
+        }
+        return clientId;
+    }
+
+    // ---- Users ----
+
+    StubUser createUser(String email, String password, String firstName, String lastName) {
+        if (email == null || email.isBlank()) {
+            throw StubHttpException.badRequest("User email is required");
+        }
+
+        String id = UUID.randomUUID().toString();
+        String key = email.toLowerCase(Locale.ROOT);
+        if (userIdsByEmail.putIfAbsent(key, id) != null) {
+            throw StubHttpException.conflict("User exists with same email");
+        }
+
+        StubUser user = new StubUser(id, key, firstName, lastName, password, true, false, System.currentTimeMillis());
+        users.put(id, user);
+        return user;
+    }
+
+    StubUser getUser(String userId) {
+        StubUser user = users.get(userId);
+        if (user == null) {
+            throw StubHttpException.notFound("User not found");
+        }
+        return user;
+    }
+
+    StubUser findUserByEmail(String email) {
+        String userId = userIdsByEmail.get(email.toLowerCase(Locale.ROOT));
+        return userId != null ? users.get(userId) : null;
+    }
+
+    void updateUser(String userId, Map<String, Object> representation) {
+        users.compute(userId, (id, user) -> {
+            if (user == null) {
+                throw StubHttpException.notFound("User not found");
+            }
+
+            String email = stringOrDefault(representation.get("email"), user.email()).toLowerCase(Locale.ROOT);
+            if (!email.equals(user.email())) {
+                if (userIdsByEmail.putIfAbsent(email, id) != null) {
+                    throw StubHttpException.conflict("User exists with same email");
+                }
+                userIdsByEmail.remove(user.email(), id);
+            }
+
+            return new StubUser(
+                    id,
+                    email,
+                    stringOrDefault(representation.get("firstName"), user.firstName()),
+                    stringOrDefault(representation.get("lastName"), user.lastName()),
+                    user.password(),
+                    representation.get("enabled") instanceof Boolean enabled ? enabled : user.enabled(),
+                    representation.get("emailVerified") instanceof Boolean verified ? verified : user.emailVerified(),
+                    user.createdTimestamp()
+            );
+        });
+    }
+
+    void resetPassword(String userId, String password) {
+        users.computeIfPresent(userId, (id, user) -> new StubUser(
+                id, user.email(), user.firstName(), user.lastName(), password,
+                user.enabled(), user.emailVerified(), user.createdTimestamp()));
+        getUser(userId);
+    }
+
+    void deleteUser(String userId) {
+        StubUser user = users.remove(userId);
+        if (user == null) {
+            throw StubHttpException.notFound("User not found");
+        }
+
+        userIdsByEmail.remove(user.email(), userId);
+        realmMappings.remove(userId);
+        clientMappings.remove(userId);
+    }
+
+    /**
+     * Check a user's password for the password grant.
+     *
+     * @return the user, or {@code null} if the credentials are invalid
+     */
+    StubUser authenticate(String username, String password) {
+        StubUser user = username != null ? findUserByEmail(username) : null;
+        return user != null && user.enabled() && user.password() != null && user.password().equals(password)
+                ? user
+                : null;
+    }
+
+    // ---- Roles ----
+
+    StubRole createRealmRole(String roleName, String description) {
+        return createRole(realmRoles, roleName, description, null);
+    }
+
+    StubRole createClientRole(String clientId, String roleName, String description) {
+        registerClient(clientId);
+        return createRole(clientRoles.computeIfAbsent(clientId, id -> new ConcurrentHashMap<>()), roleName, description, clientId);
+    }
+
+    StubRole getRealmRole(String roleName) {
+        StubRole role = realmRoles.get(roleName);
+        if (role == null) {
+            throw StubHttpException.notFound("Could not find role");
+        }
+        return role;
+    }
+
+    StubRole getClientRole(String clientId, String roleName) {
+        StubRole role = clientRoles.getOrDefault(clientId, Map.of()).get(roleName);
+        if (role == null) {
+            throw StubHttpException.notFound("Could not find role");
+        }
+        return role;
+    }
+
+    /**
+     * Realm roles sorted by name, optionally filtered by a case-insensitive name substring.
+     */
+    List<StubRole> listRealmRoles(String search) {
+        return sortedRoles(realmRoles.values(), search);
+    }
+
+    List<StubRole> listClientRoles(String clientId, String search) {
+        return sortedRoles(clientRoles.getOrDefault(clientId, Map.of()).values(), search);
+    }
+
+    void updateRealmRole(String roleName, String newName, String description) {
+        updateRole(realmRoles, roleName, newName, description);
+    }
+
+    void updateClientRole(String clientId, String roleName, String newName, String description) {
+        updateRole(clientRoles.getOrDefault(clientId, Map.of()), roleName, newName, description);
+    }
+
+    void deleteRealmRole(String roleName) {
+        deleteRole(realmRoles, roleName);
+    }
+
+    void deleteClientRole(String clientId, String roleName) {
+        deleteRole(clientRoles.getOrDefault(clientId, Map.of()), roleName);
+    }
+
+    boolean isComposite(StubRole role) {
+        return !composites.getOrDefault(role.id(), Set.of()).isEmpty();
+    }
+
+    List<StubRole> getComposites(String roleName) {
+        return rolesOf(composites.getOrDefault(getRealmRole(roleName).id(), Set.of()));
+    }
+
+    void addComposites(String roleName, Collection<String> roleIds) {
+        StubRole role = getRealmRole(roleName);
+        for (String roleId : roleIds) {
+            requireRealmRole(roleId);
+        }
+        composites.computeIfAbsent(role.id(), id -> ConcurrentHashMap.newKeySet()).addAll(roleIds);
+    }
+
+    void removeComposites(String roleName, Collection<String> roleIds) {
+        Set<String> children = composites.get(getRealmRole(roleName).id());
+        if (children != null) {
+            children.removeAll(roleIds);
+        }
+    }
+
+    // ---- Role mappings ----
+
+    void addRealmMappings(String userId, Collection<String> roleIds) {
+        getUser(userId);
+        for (String roleId : roleIds) {
+            requireRealmRole(roleId);
+        }
+        realmMappings.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).addAll(roleIds);
+    }
+
+    void removeRealmMappings(String userId, Collection<String> roleIds) {
+        getUser(userId);
+        Set<String> mapped = realmMappings.get(userId);
+        if (mapped != null) {
+            mapped.removeAll(roleIds);
+        }
+    }
+
+    void addClientMappings(String userId, String clientId, Collection<String> roleIds) {
+        getUser(userId);
+        for (String roleId : roleIds) {
+            StubRole role = rolesById.get(roleId);
+            if (role == null || !clientId.equals(role.clientId())) {
+                throw StubHttpException.notFound("Role not found");
+            }
+        }
+        clientMappings.computeIfAbsent(userId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(clientId, id -> ConcurrentHashMap.newKeySet())
+                .addAll(roleIds);
+    }
+
+    void removeClientMappings(String userId, String clientId, Collection<String> roleIds) {
+        getUser(userId);
+        Set<String> mapped = clientMappings.getOrDefault(userId, Map.of()).get(clientId);
+        if (mapped != null) {
+            mapped.removeAll(roleIds);
+        }
+    }
+
+    List<StubRole> getRealmMappings(String userId) {
+        getUser(userId);
+        return rolesOf(realmMappings.getOrDefault(userId, Set.of()));
+    }
+
+    List<StubRole> getClientMappings(String userId, String clientId) {
+        getUser(userId);
+        return rolesOf(clientMappings.getOrDefault(userId, Map.of()).getOrDefault(clientId, Set.of()));
+    }
+
+    /**
+     * Ids of the clients the user has direct role mappings for.
+     */
+    Set<String> getMappedClients(String userId) {
+        getUser(userId);
+        return clientMappings.getOrDefault(userId, Map.of()).keySet();
+    }
+
+    /**
+     * Realm roles mapped to the user, expanded through composite roles.
+     */
+    List<StubRole> getEffectiveRealmRoles(String userId) {
+        getUser(userId);
+
+        Set<String> effective = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>(realmMappings.getOrDefault(userId, Set.of()));
+        while (!pending.isEmpty()) {
+            String roleId = pending.pop();
+            if (effective.add(roleId)) {
+                pending.addAll(composites.getOrDefault(roleId, Set.of()));
+            }
+        }
+        return rolesOf(effective);
+    }
+
+    // ---- Helpers ----
+
+    private StubRole createRole(Map<String, StubRole> roles, String roleName, String description, String clientId) {
+        if (roleName == null || roleName.isBlank()) {
+            throw StubHttpException.badRequest("Role name is required");
+        }
+
+        StubRole role = new StubRole(UUID.randomUUID().toString(), roleName, description != null ? description : "", clientId);
+        if (roles.putIfAbsent(roleName, role) != null) {
+            throw StubHttpException.conflict("Role with name " + roleName + " already exists");
+        }
+        rolesById.put(role.id(), role);
+        return role;
+    }
+
+    private void updateRole(Map<String, StubRole> roles, String roleName, String newName, String description) {
+        StubRole role = roles.get(roleName);
+        if (role == null) {
+            throw StubHttpException.notFound("Could not find role");
+        }
+
+        String name = newName != null && !newName.isBlank() ? newName : roleName;
+        StubRole updated = new StubRole(role.id(), name, description != null ? description : role.description(), role.clientId());
+        if (!name.equals(roleName) && roles.putIfAbsent(name, updated) != null) {
+            throw StubHttpException.conflict("Role with name " + name + " already exists");
+        }
+        roles.put(name, updated);
+        if (!name.equals(roleName)) {
+            roles.remove(roleName);
+        }
+        rolesById.put(role.id(), updated);
+    }
+
+    private void deleteRole(Map<String, StubRole> roles, String roleName) {
+        StubRole role = roles.remove(roleName);
+        if (role == null) {
+            throw StubHttpException.notFound("Could not find role");
+        }
+
+        rolesById.remove(role.id());
+        composites.remove(role.id());
+        composites.values().forEach(children -> children.remove(role.id()));
+        realmMappings.values().forEach(mapped -> mapped.remove(role.id()));
+        clientMappings.values().forEach(clients -> clients.values().forEach(mapped -> mapped.remove(role.id())));
+    }
+
+    private void requireRealmRole(String roleId) {
+        StubRole role = rolesById.get(roleId);
+        if (role == null || role.clientId() != null) {
+            throw StubHttpException.notFound("Role not found");
+        }
+    }
+
+    private List<StubRole> rolesOf(Collection<String> roleIds) {
+        List<StubRole> roles = new ArrayList<>(roleIds.size());
+        for (String roleId : roleIds) {
+            StubRole role = rolesById.get(roleId);
+            if (role != null) {
+                roles.add(role);
+            }
+        }
+        roles.sort(Comparator.comparing(StubRole::name));
+        return roles;
+    }
+
+    private static List<StubRole> sortedRoles(Collection<StubRole> roles, String search) {
+        String filter = search != null ? search.toLowerCase(Locale.ROOT) : null;
+        return roles.stream()
+                .filter(role -> filter == null || role.name().toLowerCase(Locale.ROOT).contains(filter))
+                .sorted(Comparator.comparing(StubRole::name))
+                .toList();
+    }
+
+    private static String stringOrDefault(Object value, String defaultValue) {
+        return value != null ? value.toString() : defaultValue;
+    }
+
+    record StubUser(
+            String id,
+            String email,
+            String firstName,
+            String lastName,
+            String password,
+            boolean enabled,
+            boolean emailVerified,
+            long createdTimestamp
+    ) {
+
+        Map<String, Object> toRepresentation() {
+            Map<String, Object> user = new LinkedHashMap<>();
+            user.put("id", id);
+            user.put("createdTimestamp", createdTimestamp);
+            user.put("username", email);
+            user.put("enabled", enabled);
+            user.put("emailVerified", emailVerified);
+            user.put("firstName", firstName);
+            user.put("lastName", lastName);
+            user.put("email", email);
+            return user;
+        }
+    }
+
+    record StubRole(String id, String name, String description, String clientId) {
+    }
+}
@@ -0,0 +1,102 @@
+package com.fractalhive.keycloak.stub;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Signs and verifies RS256 tokens with a key pair generated when the stub starts.
+ */
+final class StubTokenIssuer {
+
+    private final RSAKey signingKey;
+    private final JWSSigner signer;
+    private final JWSVerifier verifier;
+    private final Map<String, Object> jwkSet;
+
+    StubTokenIssuer() {
+        try {
+            signingKey = new RSAKeyGenerator(2048)
+                    .keyUse(KeyUse.SIGNATURE)
+                    .algorithm(JWSAlgorithm.RS256)
+                    .keyIDFromThumbprint(true)
+                    .generate();
+            signer = new RSASSASigner(signingKey);
+            verifier = new RSASSAVerifier(signingKey.toRSAPublicKey());
+        } catch (JOSEException ex) {
+            throw new IllegalStateException("Failed to generate the stub signing key", ex);
+        }
+        jwkSet = new JWKSet(signingKey.toPublicJWK()).toJSONObject();
+    }
+
+    /**
+     * Public signing key as a JWK set, as served by the realm's {@code /certs} endpoint.
+     */
+    Map<String, Object> getJwkSet() {
+        return jwkSet;
+    }
+
+    /**
+     * Sign a token with the given claims; {@code iat}, {@code exp} and {@code jti} are added.
+     */
+    String sign(String type, Map<String, Object> claims, Duration lifetime) {
+        Instant issuedAt = Instant.now();
+        JWTClaimsSet.Builder claimsSet = new JWTClaimsSet.Builder()
+                .issueTime(Date.from(issuedAt))
+                .expirationTime(Date.from(issuedAt.plus(lifetime)))
+                .jwtID(UUID.randomUUID().toString())
+                .claim("typ", type);
+        claims.forEach(claimsSet::claim);
+
+        JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.RS256)
+                .type(JOSEObjectType.JWT)
+                .keyID(signingKey.getKeyID())
+                .build();
+
+        SignedJWT jwt = new SignedJWT(header, claimsSet.build());
+        try {
+            jwt.sign(signer);
+        } catch (JOSEException ex) {
+            throw new IllegalStateException("Failed to sign token", ex);
+        }
+        return jwt.serialize();
+    }
+
+    /**
+     * Verify a token's signature and expiry.
+     *
+     * @return the token's claims, or {@code null} if the token is malformed, forged or expired
+     */
+    JWTClaimsSet verify(String token) {
+        try {
+            SignedJWT jwt = SignedJWT.parse(token);
+            if (!jwt.verify(verifier)) {
+                return null;
+            }
+
+            JWTClaimsSet claims = jwt.getJWTClaimsSet();
+            Date expiresAt = claims.getExpirationTime();
+            return expiresAt != null && expiresAt.toInstant().isAfter(Instant.now()) ? claims : null;
+        } catch (ParseException | JOSEException ex) {
+            return null;
+        }
+    }
+}
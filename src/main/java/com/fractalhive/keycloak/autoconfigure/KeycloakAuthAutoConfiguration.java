@@ -1,14 +1,20 @@
 package com.fractalhive.keycloak.autoconfigure;
 
+import com.fractalhive.keycloak.config.JwtDecoderConfig;
+import com.fractalhive.keycloak.config.KeycloakHttpClientConfig;
+import com.fractalhive.keycloak.config.KeycloakIntrospectionConfig;
+import com.fractalhive.keycloak.config.KeycloakMetricsConfig;
+import com.fractalhive.keycloak.config.KeycloakResilienceConfig;
+import com.fractalhive.keycloak.config.KeycloakTenantConfig;
 import com.fractalhive.keycloak.config.SecurityConfig;
+import com.fractalhive.keycloak.config.VirtualThreadExecutionConfig;
 import com.fractalhive.keycloak.config.WebClientConfig;
 import jakarta.annotation.PostConstruct;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.servlet.OAuth2ResourceServerAutoConfiguration;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
-import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.util.StringUtils;
@@ -18,11 +24,21 @@ import org.springframework.web.reactive.function.client.WebClient;
  * Auto-configuration for Keycloak authentication and authorization.
  * This class is automatically discovered by Spring Boot when the starter is included.
  */
-@AutoConfiguration
+@AutoConfiguration(before = OAuth2ResourceServerAutoConfiguration.class)
 @ConditionalOnClass({EnableWebSecurity.class, WebClient.class})
 @ConditionalOnProperty(prefix = "fractalhive.keycloak", name = "server-url")
 @EnableConfigurationProperties(KeycloakAuthProperties.class)
-@Import({SecurityConfig.class, WebClientConfig.class})
+@Import({
+        SecurityConfig.class,
+        JwtDecoderConfig.class,
+        WebClientConfig.class,
+        KeycloakHttpClientConfig.class,
+        VirtualThreadExecutionConfig.class,
+        KeycloakMetricsConfig.class,
+        KeycloakResilienceConfig.class,
+        KeycloakTenantConfig.class,
+        KeycloakIntrospectionConfig.class
+})
 public class KeycloakAuthAutoConfiguration {
 
     private final KeycloakAuthProperties properties;
@@ -64,15 +80,36 @@ public class KeycloakAuthAutoConfiguration {
                     "This MUST be unique per application. Please add this property to your application.properties or application.yml"
             );
         }
-    }
 
-    /**
-     * WebClient bean for Keycloak API calls.
-     * Can be overridden by consuming applications if needed.
-     */
-    @Bean
-    @ConditionalOnMissingBean
-    public WebClient keycloakWebClient(WebClient.Builder builder) {
-        return builder.build();
+        double refreshRatio = properties.getAdmin().getTokenRefreshRatio();
+        if (refreshRatio <= 0 || refreshRatio > 1) {
+            throw new IllegalArgumentException(
+                    "Keycloak configuration property 'fractalhive.keycloak.admin.token-refresh-ratio' must be " +
+                    "greater than 0 and at most 1, but was " + refreshRatio
+            );
+        }
+
+        double jitter = properties.getResilience().getRetry().getJitter();
+        if (jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException(
+                    "Keycloak configuration property 'fractalhive.keycloak.resilience.retry.jitter' must be " +
+                    "between 0 and 1, but was " + jitter
+            );
+        }
+
+        if (properties.getTenants().isEnabled() && properties.getTenants().getAllowedRealms().isEmpty()) {
+            throw new IllegalArgumentException(
+                    "Keycloak configuration property 'fractalhive.keycloak.tenants.allowed-realms' must list " +
+                    "the tenant realms when 'fractalhive.keycloak.tenants.enabled' is true"
+            );
+        }
+
+        int maxIntrospections = properties.getIntrospection().getMaxConcurrentCalls();
+        if (properties.getIntrospection().isEnabled() && maxIntrospections < 1) {
+            throw new IllegalArgumentException(
+                    "Keycloak configuration property 'fractalhive.keycloak.introspection.max-concurrent-calls' " +
+                    "must be at least 1, but was " + maxIntrospections
+            );
+        }
     }
 }
@@ -1,8 +1,17 @@
 package com.fractalhive.keycloak.autoconfigure;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.beans.BeanUtils;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Configuration properties for Keycloak authentication.
  * <p>
@@ -189,6 +198,117 @@ public class KeycloakAuthProperties {
             "/v3/api-docs/**"
     };
 
+    /**
+     * Execution mode for the blocking services and the {@code /auth} endpoints.
+     * <p>
+     * With {@code virtual-threads}, the embedded Tomcat serves requests on virtual threads and Keycloak
+     * calls go through a JDK {@code HttpClient} transport, so a request waiting on Keycloak no longer holds
+     * a platform worker thread. Requires Java 21.
+     * </p>
+     * <p>
+     * <b>Property:</b> {@code fractalhive.keycloak.execution}
+     * </p>
+     * <p>
+     * <b>Values:</b> {@code platform}, {@code virtual-threads}
+     * </p>
+     * <p>
+     * <b>Default:</b> {@code platform}
+     * </p>
+     */
+    private Execution execution = Execution.PLATFORM;
+
+    /**
+     * HTTP client configuration for calls to Keycloak.
+     * <p>
+     * Keycloak traffic uses a dedicated connection pool so its connections are reused across requests and
+     * waits for a connection or a response are bounded.
+     * </p>
+     * <p>
+     * <b>Property prefix:</b> {@code fractalhive.keycloak.http.*}
+     * </p>
+     */
+    private Http http = new Http();
+
+    /**
+     * JSON Web Key Set handling for access token verification.
+     * <p>
+     * The starter keeps the realm's signing keys in memory, warms them at startup and refreshes them in
+     * the background, so verifying a token never waits for a key download.
+     * </p>
+     * <p>
+     * <b>Property prefix:</b> {@code fractalhive.keycloak.jwks.*}
+     * </p>
+     */
+    private Jwks jwks = new Jwks();
+
+    /**
+     * In-memory cache configuration.
+     * <p>
+     * <b>Property prefix:</b> {@code fractalhive.keycloak.cache.*}
+     * </p>
+     */
+    private Cache cache = new Cache();
+
+    /**
+     * In-memory catalog of realm and client roles.
+     * <p>
+     * Role mutations resolve role ids from the catalog instead of looking each role up in Keycloak first.
+     * </p>
+     * <p>
+     * <b>Property prefix:</b> {@code fractalhive.keycloak.role-catalog.*}
+     * </p>
+     */
+    private RoleCatalog roleCatalog = new RoleCatalog();
+
+    /**
+     * Micrometer metrics for calls to Keycloak and for the starter's caches.
+     * <p>
+     * <b>Property prefix:</b> {@code fractalhive.keycloak.metrics.*}
+     * </p>
+     */
+    private Metrics metrics = new Metrics();
+
+    /**
+     * Timeouts, retries, circuit breakers and bulkheads for calls to Keycloak.
+     * <p>
+     * Keeps a slow or failing Keycloak from tying up the application: every call is bounded by a timeout,
+     * idempotent calls are retried after transient failures, and a degraded Keycloak is failed fast.
+     * End-user traffic (login, refresh, logout, key downloads) and Admin API traffic are isolated from each
+     * other, so an Admin API brownout doesn't take out sign-ins.
+     * </p>
+     * <p>
+     * <b>Property prefix:</b> {@code fractalhive.keycloak.resilience.*}
+     * </p>
+     */
+    private Resilience resilience = new Resilience();
+
+    /**
+     * Serving several tenant realms of the same Keycloak server from one application.
+     * <p>
+     * When enabled, the realm of every request is resolved from the token issuer, a header or the
+     * subdomain, and the token is verified against that realm's keys. Each realm gets its own signing key
+     * cache, JWT decoder, admin token and role catalog, created on first use and dropped when idle.
+     * </p>
+     * <p>
+     * <b>Property prefix:</b> {@code fractalhive.keycloak.tenants.*}
+     * </p>
+     */
+    private Tenants tenants = new Tenants();
+
+    /**
+     * Validation of opaque access tokens through Keycloak's token introspection endpoint.
+     * <p>
+     * When enabled, bearer tokens that are not JWTs are sent to {@code /token/introspect} with the
+     * application's client credentials; JWTs are still verified locally. Introspection results are cached
+     * until the token expires, concurrent introspections of the same token share one call, and the number of
+     * introspection calls in flight is limited, so most requests never reach Keycloak.
+     * </p>
+     * <p>
+     * <b>Property prefix:</b> {@code fractalhive.keycloak.introspection.*}
+     * </p>
+     */
+    private Introspection introspection = new Introspection();
+
     /**
      * Cookie configuration for authentication tokens.
      */
@@ -245,6 +365,22 @@ public class KeycloakAuthProperties {
          * </p>
          */
         private String sameSite = "None";
+
+        /**
+         * Copy the access token cookie into a synthesized {@code Authorization} header (legacy mode).
+         * <p>
+         * Token resolution reads the cookie directly, so this is only needed when downstream code reads
+         * the token from the {@code Authorization} header itself. Adds a filter and a request wrapper
+         * to every request.
+         * </p>
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.cookie.legacy-authorization-header}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code false}
+         * </p>
+         */
+        private boolean legacyAuthorizationHeader = false;
     }
 
     /**
@@ -302,40 +438,936 @@ public class KeycloakAuthProperties {
          * </p>
          */
         private String clientSecret;
+
+        /**
+         * Fraction of the admin token lifetime after which it is refreshed in the background.
+         * <p>
+         * Once this point is reached, callers keep receiving the current (still valid) token while a
+         * single refresh runs in the background. Must be between {@code 0} and {@code 1}.
+         * </p>
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.admin.token-refresh-ratio}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 0.75}
+         * </p>
+         */
+        private double tokenRefreshRatio = 0.75;
+
+        /**
+         * Safety margin subtracted from the admin token's {@code expires_in}.
+         * <p>
+         * A token is never handed out once less than this margin remains, so requests in flight
+         * don't reach Keycloak with an expired token. The margin is capped at a quarter of the token's
+         * lifetime, so short-lived tokens remain usable.
+         * </p>
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.admin.token-expiry-skew}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 30s}
+         * </p>
+         */
+        private Duration tokenExpirySkew = Duration.ofSeconds(30);
+
+        /**
+         * Number of entries requested per page from Admin API list endpoints.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.admin.page-size}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 100}
+         * </p>
+         */
+        private int pageSize = 100;
+
+        /**
+         * Maximum number of Admin API calls a bulk operation runs at the same time.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.admin.bulk-concurrency}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 8}
+         * </p>
+         */
+        private int bulkConcurrency = 8;
+
+        /**
+         * Number of times a bulk operation retries a call that failed with a 5xx or 429 response or a
+         * connection error.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.admin.max-retries}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 3}
+         * </p>
+         */
+        private int maxRetries = 3;
+
+        /**
+         * Initial delay before a retry; doubled (with jitter) for every further attempt.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.admin.retry-backoff}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 500ms}
+         * </p>
+         */
+        private Duration retryBackoff = Duration.ofMillis(500);
     }
 
     /**
-     * Get the Keycloak authentication URL
+     * HTTP client configuration for Keycloak calls.
      */
-    public String getAuthUrl() {
-        return serverUrl + "/realms/" + realm + "/protocol/openid-connect";
+    @Data
+    public static class Http {
+        /**
+         * Maximum number of pooled connections to Keycloak.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.http.max-connections}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 100}
+         * </p>
+         */
+        private int maxConnections = 100;
+
+        /**
+         * Maximum number of requests waiting for a pooled connection. Further requests fail fast.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.http.pending-acquire-max-count}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 1000}
+         * </p>
+         */
+        private int pendingAcquireMaxCount = 1000;
+
+        /**
+         * Maximum time to wait for a pooled connection.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.http.pending-acquire-timeout}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 5s}
+         * </p>
+         */
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+
+        /**
+         * Time after which an idle pooled connection is closed.
+         * <p>
+         * Keep this below the idle timeout of Keycloak and of any proxy in front of it, so the pool never
+         * hands out a connection the server has already closed.
+         * </p>
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.http.max-idle-time}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 30s}
+         * </p>
+         */
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+
+        /**
+         * Maximum lifetime of a pooled connection, so connections are eventually rebalanced across
+         * Keycloak nodes.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.http.max-life-time}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 5m}
+         * </p>
+         */
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+
+        /**
+         * Interval at which idle and expired connections are evicted in the background.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.http.eviction-interval}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 30s}
+         * </p>
+         */
+        private Duration evictionInterval = Duration.ofSeconds(30);
+
+        /**
+         * Timeout for establishing a connection to Keycloak.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.http.connect-timeout}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 2s}
+         * </p>
+         */
+        private Duration connectTimeout = Duration.ofSeconds(2);
+
+        /**
+         * Timeout for receiving a response from Keycloak.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.http.response-timeout}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 10s}
+         * </p>
+         */
+        private Duration responseTimeout = Duration.ofSeconds(10);
+
+        /**
+         * Request gzip-compressed responses from Keycloak.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.http.compression}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code true}
+         * </p>
+         */
+        private boolean compression = true;
+
+        /**
+         * Negotiate HTTP/2 with Keycloak, falling back to HTTP/1.1.
+         * <p>
+         * HTTP/2 is only negotiated over TLS, so {@code server-url} must use {@code https}.
+         * </p>
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.http.http2}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code false}
+         * </p>
+         */
+        private boolean http2 = false;
     }
 
     /**
-     * Get the Keycloak admin API URL for the target realm.
-     * <p>
-     * This URL is used for admin operations on the target realm (creating users, managing roles, etc.).
-     * </p>
-     * 
-     * @return Admin API URL for the target realm
+     * JSON Web Key Set cache configuration.
      */
-    public String getAdminUrl() {
-        return serverUrl + "/admin/realms/" + realm;
+    @Data
+    public static class Jwks {
+        /**
+         * Verify access tokens against the starter-managed key set.
+         * <p>
+         * When disabled (or when the application defines its own {@code JwtDecoder}), Spring Boot's
+         * resource server decoder is used instead.
+         * </p>
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.jwks.enabled}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code true}
+         * </p>
+         */
+        private boolean enabled = true;
+
+        /**
+         * Interval at which the key set is refreshed in the background.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.jwks.refresh-interval}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 5m}
+         * </p>
+         */
+        private Duration refreshInterval = Duration.ofMinutes(5);
+
+        /**
+         * Minimum time between refreshes triggered by tokens with an unknown {@code kid}.
+         * <p>
+         * Protects Keycloak against floods of tokens with made-up key ids.
+         * </p>
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.jwks.min-refresh-interval}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 30s}
+         * </p>
+         */
+        private Duration minRefreshInterval = Duration.ofSeconds(30);
+
+        /**
+         * Maximum time startup waits for the initial key set download.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.jwks.warmup-timeout}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 10s}
+         * </p>
+         */
+        private Duration warmupTimeout = Duration.ofSeconds(10);
     }
 
     /**
-     * Get the Keycloak admin authentication URL.
-     * <p>
-     * This URL is used to obtain admin access tokens. Uses the admin realm if specified,
-     * otherwise uses the target realm. Both admin authentication and operations happen in
-     * the same realm.
-     * </p>
-     * 
-     * @return Admin authentication URL using the admin realm (or target realm if not specified)
+     * In-memory caches maintained by the starter.
      */
-    public String getAdminAuthUrl() {
-        String realmForAuth = adminRealm != null && !adminRealm.isEmpty() ? adminRealm : realm;
-        return serverUrl + "/realms/" + realmForAuth + "/protocol/openid-connect";
+    @Data
+    public static class Cache {
+        /**
+         * Granted authorities converted from access tokens, keyed by the token's {@code jti}.
+         * <p>
+         * Repeated requests with the same access token reuse the converted authorities instead of
+         * parsing the role claims again.
+         * </p>
+         * <p>
+         * <b>Property prefix:</b> {@code fractalhive.keycloak.cache.authorities.*}
+         * </p>
+         */
+        private CacheSpec authorities = new CacheSpec(true, 10_000, Duration.ofMinutes(5));
+
+        /**
+         * Decoded and verified access tokens, placed in front of the resource server's {@code JwtDecoder}.
+         * <p>
+         * Repeated requests with the same access token skip signature verification. Entries never outlive
+         * the token's {@code exp} claim. Disabled by default.
+         * </p>
+         * <p>
+         * <b>Property prefix:</b> {@code fractalhive.keycloak.cache.jwt.*}
+         * </p>
+         */
+        private CacheSpec jwt = new CacheSpec(false, 10_000, Duration.ofMinutes(5));
+
+        /**
+         * Effective (composite-expanded) roles per user, as returned by {@code getEffectiveRoles}.
+         * <p>
+         * Invalidated when the starter changes a user's role mappings or changes a role. Changes made
+         * outside the application are visible once the entry expires.
+         * </p>
+         * <p>
+         * <b>Property prefix:</b> {@code fractalhive.keycloak.cache.effective-roles.*}
+         * </p>
+         */
+        private CacheSpec effectiveRoles = new CacheSpec(true, 10_000, Duration.ofMinutes(1));
+
+        /**
+         * Keycloak users by email and by id, used for email-to-id resolution and user lookups.
+         * <p>
+         * Populated by lookups and registration, and evicted when the starter updates or deletes a user.
+         * Hit and miss counts are recorded.
+         * </p>
+         * <p>
+         * <b>Property prefix:</b> {@code fractalhive.keycloak.cache.users.*}
+         * </p>
+         */
+        private CacheSpec users = new CacheSpec(true, 10_000, Duration.ofMinutes(5));
+    }
+
+    /**
+     * Size and lifetime settings for a single cache.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CacheSpec {
+        /**
+         * Whether the cache is enabled.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum number of entries before the least recently used ones are evicted.
+         */
+        private long maximumSize = 10_000;
+
+        /**
+         * Maximum time an entry is kept after it was written.
+         */
+        private Duration ttl = Duration.ofMinutes(5);
+    }
+
+    /**
+     * Role catalog configuration.
+     */
+    @Data
+    public static class RoleCatalog {
+        /**
+         * Resolve role ids from the in-memory catalog.
+         * <p>
+         * When disabled, every role mutation looks the role up in Keycloak first.
+         * </p>
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.role-catalog.enabled}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code true}
+         * </p>
+         */
+        private boolean enabled = true;
+
+        /**
+         * Interval at which the catalog is reloaded from Keycloak in the background.
+         * <p>
+         * Picks up roles created, renamed or deleted outside this application.
+         * </p>
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.role-catalog.refresh-interval}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 5m}
+         * </p>
+         */
+        private Duration refreshInterval = Duration.ofMinutes(5);
+
+        /**
+         * Maximum time application startup waits for the first catalog load. When it takes longer, the
+         * catalog is loaded in the background and lookups fall back to Keycloak meanwhile.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.role-catalog.warmup-timeout}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 10s}
+         * </p>
+         */
+        private Duration warmupTimeout = Duration.ofSeconds(10);
+    }
+
+    /**
+     * Metrics configuration.
+     */
+    @Data
+    public static class Metrics {
+        /**
+         * Record metrics when Micrometer is on the classpath.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.metrics.enabled}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code true}
+         * </p>
+         */
+        private boolean enabled = true;
+
+        /**
+         * Publish percentile histogram buckets for the {@code keycloak.client.requests} timer.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.metrics.percentile-histogram}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code true}
+         * </p>
+         */
+        private boolean percentileHistogram = true;
+    }
+
+    /**
+     * Resilience configuration for calls to Keycloak.
+     */
+    @Data
+    public static class Resilience {
+        /**
+         * Apply timeouts, retries, circuit breakers and bulkheads to Keycloak calls.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.resilience.enabled}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code true}
+         * </p>
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum time a single attempt of a Keycloak call may take until the response arrives.
+         * <p>
+         * A call that times out fails with {@code KeycloakUnavailableException}, or is retried if it is
+         * idempotent.
+         * </p>
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.resilience.timeout}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 5s}
+         * </p>
+         */
+        private Duration timeout = Duration.ofSeconds(5);
+
+        /**
+         * Per-operation timeouts overriding {@link #timeout}, keyed by operation name.
+         * <p>
+         * Operation names are the {@code operation} tags of the {@code keycloak.client.requests} metric,
+         * e.g. {@code login}, {@code refresh}, {@code admin-token} or {@code list-roles}.
+         * </p>
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.resilience.timeouts.<operation>}
+         * </p>
+         * <p>
+         * <b>Example:</b> {@code fractalhive.keycloak.resilience.timeouts.login=2s}
+         * </p>
+         */
+        private Map<String, Duration> timeouts = new HashMap<>();
+
+        /**
+         * Retries of idempotent calls.
+         * <p>
+         * <b>Property prefix:</b> {@code fractalhive.keycloak.resilience.retry.*}
+         * </p>
+         */
+        private Retry retry = new Retry();
+
+        /**
+         * Circuit breakers, one for end-user traffic and one for Admin API traffic.
+         * <p>
+         * <b>Property prefix:</b> {@code fractalhive.keycloak.resilience.circuit-breaker.*}
+         * </p>
+         */
+        private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+        /**
+         * Limits on concurrent calls per traffic class.
+         * <p>
+         * <b>Property prefix:</b> {@code fractalhive.keycloak.resilience.bulkhead.*}
+         * </p>
+         */
+        private Bulkhead bulkhead = new Bulkhead();
+
+        /**
+         * Timeout of an operation, given its name.
+         */
+        public Duration getTimeout(String operation) {
+            return timeouts.getOrDefault(operation, timeout);
+        }
+    }
+
+    /**
+     * Retry configuration for idempotent Keycloak calls.
+     * <p>
+     * Calls are retried after connection failures, timeouts and {@code 429}, {@code 502}, {@code 503} and
+     * {@code 504} responses. Non-idempotent calls such as login, refresh, registration and role creation are
+     * never retried.
+     * </p>
+     */
+    @Data
+    public static class Retry {
+        /**
+         * Maximum number of retries after the first attempt. {@code 0} disables retries.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.resilience.retry.max-retries}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 2}
+         * </p>
+         */
+        private int maxRetries = 2;
+
+        /**
+         * Delay before the first retry. The delay doubles for every further retry.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.resilience.retry.initial-backoff}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 100ms}
+         * </p>
+         */
+        private Duration initialBackoff = Duration.ofMillis(100);
+
+        /**
+         * Upper bound for the delay between retries.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.resilience.retry.max-backoff}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 2s}
+         * </p>
+         */
+        private Duration maxBackoff = Duration.ofSeconds(2);
+
+        /**
+         * Fraction of each delay that is randomized, between 0 and 1.
+         * <p>
+         * Randomized delays keep many instances from retrying against a recovering Keycloak at the same
+         * moment. With {@code 0.5}, a 400ms delay becomes anywhere between 200ms and 400ms.
+         * </p>
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.resilience.retry.jitter}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 0.5}
+         * </p>
+         */
+        private double jitter = 0.5;
+    }
+
+    /**
+     * Circuit breaker configuration, applied separately to end-user and Admin API traffic.
+     * <p>
+     * Connection failures, timeouts, {@code 429} and {@code 5xx} responses count as failures. Once the
+     * failure rate over the last {@link #slidingWindowSize} calls reaches {@link #failureRateThreshold},
+     * the circuit opens and calls fail immediately with {@code KeycloakUnavailableException}. After
+     * {@link #openDuration}, a few trial calls are let through; the circuit closes again if they all succeed.
+     * </p>
+     */
+    @Data
+    public static class CircuitBreaker {
+        /**
+         * Enable the circuit breakers.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.resilience.circuit-breaker.enabled}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code true}
+         * </p>
+         */
+        private boolean enabled = true;
+
+        /**
+         * Failure rate, in percent, at which the circuit opens.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.resilience.circuit-breaker.failure-rate-threshold}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 50}
+         * </p>
+         */
+        private int failureRateThreshold = 50;
+
+        /**
+         * Number of most recent calls the failure rate is computed over.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.resilience.circuit-breaker.sliding-window-size}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 50}
+         * </p>
+         */
+        private int slidingWindowSize = 50;
+
+        /**
+         * Minimum number of recorded calls before the failure rate is evaluated.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.resilience.circuit-breaker.minimum-calls}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 20}
+         * </p>
+         */
+        private int minimumCalls = 20;
+
+        /**
+         * Time the circuit stays open before trial calls are let through.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.resilience.circuit-breaker.open-duration}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 10s}
+         * </p>
+         */
+        private Duration openDuration = Duration.ofSeconds(10);
+
+        /**
+         * Number of trial calls let through after {@link #openDuration}.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.resilience.circuit-breaker.half-open-calls}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 5}
+         * </p>
+         */
+        private int halfOpenCalls = 5;
+    }
+
+    /**
+     * Bulkhead configuration: the maximum number of concurrent Keycloak calls per traffic class.
+     * <p>
+     * Calls beyond the limit fail immediately with {@code KeycloakUnavailableException} instead of queueing,
+     * so a backlog of slow Admin API calls can't hold every connection while sign-ins wait.
+     * </p>
+     */
+    @Data
+    public static class Bulkhead {
+        /**
+         * Maximum concurrent calls on behalf of end users (login, refresh, logout, key downloads).
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.resilience.bulkhead.user-max-concurrent-calls}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 200}
+         * </p>
+         */
+        private int userMaxConcurrentCalls = 200;
+
+        /**
+         * Maximum concurrent Admin API calls, including admin token requests.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.resilience.bulkhead.admin-max-concurrent-calls}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 50}
+         * </p>
+         */
+        private int adminMaxConcurrentCalls = 50;
+    }
+
+    @Data
+    public static class Introspection {
+        /**
+         * Accept opaque access tokens, validated by token introspection.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.introspection.enabled}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code false}
+         * </p>
+         */
+        private boolean enabled = false;
+
+        /**
+         * Maximum number of cached introspection results.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.introspection.maximum-size}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 10000}
+         * </p>
+         */
+        private long maximumSize = 10_000;
+
+        /**
+         * Maximum time an active token's introspection result is reused; never beyond the token's
+         * {@code exp}. A token revoked in Keycloak is accepted for at most this long.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.introspection.ttl}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 1m}
+         * </p>
+         */
+        private Duration ttl = Duration.ofMinutes(1);
+
+        /**
+         * Time an inactive (expired, revoked or unknown) token is remembered as such, so replaying it is
+         * rejected without calling Keycloak.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.introspection.negative-ttl}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 30s}
+         * </p>
+         */
+        private Duration negativeTtl = Duration.ofSeconds(30);
+
+        /**
+         * Maximum introspection calls in flight. Further requests for uncached tokens wait for a free slot.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.introspection.max-concurrent-calls}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 20}
+         * </p>
+         */
+        private int maxConcurrentCalls = 20;
+
+        /**
+         * Maximum time a request waits for a free introspection slot before failing authentication.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.introspection.max-wait}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 1s}
+         * </p>
+         */
+        private Duration maxWait = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class Tenants {
+        /**
+         * Resolve the realm per request instead of serving only {@code fractalhive.keycloak.realm}.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.tenants.enabled}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code false}
+         * </p>
+         */
+        private boolean enabled = false;
+
+        /**
+         * Where the realm of a request is taken from. Requests without a realm use
+         * {@code fractalhive.keycloak.realm}.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.tenants.resolution}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code issuer}
+         * </p>
+         */
+        private RealmResolution resolution = RealmResolution.ISSUER;
+
+        /**
+         * Request header holding the realm name, with {@code resolution=header}.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.tenants.header-name}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code X-Realm}
+         * </p>
+         */
+        private String headerName = "X-Realm";
+
+        /**
+         * Realms requests may use, besides {@code fractalhive.keycloak.realm}. Required when tenants are
+         * enabled: the realm comes from the request, and other names are rejected without calling Keycloak.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.tenants.allowed-realms}
+         * </p>
+         */
+        private Set<String> allowedRealms = new LinkedHashSet<>();
+
+        /**
+         * Client per realm, for realms whose tokens carry their roles under a client other than
+         * {@code resource-id}.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.tenants.clients.<realm>.client-id} and
+         * {@code .resource-id}
+         * </p>
+         */
+        private Map<String, TenantClient> clients = new HashMap<>();
+
+        /**
+         * Maximum number of realms kept at a time; the least recently used realm is dropped first.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.tenants.maximum-realms}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 500}
+         * </p>
+         */
+        private long maximumRealms = 500;
+
+        /**
+         * Time after which a realm that served no request is dropped, stopping its background refreshes.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.tenants.idle-timeout}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 1h}
+         * </p>
+         */
+        private Duration idleTimeout = Duration.ofHours(1);
+
+        /**
+         * Time a realm whose signing keys could not be loaded is rejected before loading is tried again.
+         * <p>
+         * <b>Property:</b> {@code fractalhive.keycloak.tenants.failure-ttl}
+         * </p>
+         * <p>
+         * <b>Default:</b> {@code 30s}
+         * </p>
+         */
+        private Duration failureTtl = Duration.ofSeconds(30);
+
+        /**
+         * Whether {@code realm} may be served.
+         */
+        public boolean isAllowed(String realm) {
+            return allowedRealms.contains(realm);
+        }
+    }
+
+    @Data
+    public static class TenantClient {
+        /**
+         * Client id in the tenant realm; defaults to {@code fractalhive.keycloak.client-id}.
+         */
+        private String clientId;
+
+        /**
+         * Client whose roles become authorities; defaults to the tenant's client id.
+         */
+        private String resourceId;
+    }
+
+    /**
+     * Source of the realm a request belongs to.
+     */
+    public enum RealmResolution {
+        /**
+         * The {@code iss} claim of the bearer token, e.g. {@code https://keycloak/realms/acme}.
+         */
+        ISSUER,
+
+        /**
+         * The header named by {@code tenants.header-name}.
+         */
+        HEADER,
+
+        /**
+         * The first label of the request's host name, e.g. {@code acme} for {@code acme.example.com}.
+         */
+        SUBDOMAIN
+    }
+
+    /**
+     * Thread model used to serve requests and wait for Keycloak responses.
+     */
+    public enum Execution {
+        /**
+         * Requests run on the servlet container's platform worker threads.
+         */
+        PLATFORM,
+
+        /**
+         * Requests and blocking Keycloak calls run on virtual threads.
+         */
+        VIRTUAL_THREADS
+    }
+
+    /**
+     * Get the Keycloak authentication URL
+     */
+    public String getAuthUrl() {
+        return serverUrl + "/realms/" + realm + "/protocol/openid-connect";
+    }
+
+    /**
+     * Get the Keycloak admin API URL for the target realm.
+     * <p>
+     * This URL is used for admin operations on the target realm (creating users, managing roles, etc.).
+     * </p>
+     * 
+     * @return Admin API URL for the target realm
+     */
+    public String getAdminUrl() {
+        return serverUrl + "/admin/realms/" + realm;
+    }
+
+    /**
+     * Get the Keycloak admin authentication URL.
+     * <p>
+     * This URL is used to obtain admin access tokens. Uses the admin realm if specified,
+     * otherwise uses the target realm. Both admin authentication and operations happen in
+     * the same realm.
+     * </p>
+     * 
+     * @return Admin authentication URL using the admin realm (or target realm if not specified)
+     */
+    public String getAdminAuthUrl() {
+        String realmForAuth = adminRealm != null && !adminRealm.isEmpty() ? adminRealm : realm;
+        return serverUrl + "/realms/" + realmForAuth + "/protocol/openid-connect";
+    }
+
+    /**
+     * Copy of these properties for another realm of the same Keycloak server.
+     * <p>
+     * The realm's client from {@code tenants.clients} replaces {@code client-id} and {@code resource-id}
+     * when configured. Nested settings (caches, admin, JWKS, ...) are shared with this
+     * instance, not copied.
+     * </p>
+     */
+    public KeycloakAuthProperties forRealm(String realmName) {
+        KeycloakAuthProperties copy = new KeycloakAuthProperties();
+        BeanUtils.copyProperties(this, copy);
+        copy.setRealm(realmName);
+
+        TenantClient client = tenants.getClients().get(realmName);
+        if (client != null) {
+            if (client.getClientId() != null) {
+                copy.setClientId(client.getClientId());
+                copy.setResourceId(client.getResourceId());
+            }
+            if (client.getResourceId() != null) {
+                copy.setResourceId(client.getResourceId());
+            }
+        }
+        return copy;
     }
 
     /**
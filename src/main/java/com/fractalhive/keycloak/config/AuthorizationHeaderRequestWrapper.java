@@ -4,8 +4,17 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletRequestWrapper;
 import org.springframework.http.HttpHeaders;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
 /**
  * Request wrapper that adds Authorization header from cookie.
+ * <p>
+ * The header is visible consistently through {@link #getHeader}, {@link #getHeaders} and
+ * {@link #getHeaderNames}.
+ * </p>
  */
 public class AuthorizationHeaderRequestWrapper extends HttpServletRequestWrapper {
 
@@ -26,4 +35,26 @@ public class AuthorizationHeaderRequestWrapper extends HttpServletRequestWrapper
         }
         return super.getHeader(name);
     }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        if (HttpHeaders.AUTHORIZATION.equalsIgnoreCase(name)) {
+            return Collections.enumeration(List.of(authorizationHeader));
+        }
+        return super.getHeaders(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        List<String> names = new ArrayList<>();
+        Enumeration<String> headerNames = super.getHeaderNames();
+        while (headerNames != null && headerNames.hasMoreElements()) {
+            String name = headerNames.nextElement();
+            if (!HttpHeaders.AUTHORIZATION.equalsIgnoreCase(name)) {
+                names.add(name);
+            }
+        }
+        names.add(HttpHeaders.AUTHORIZATION);
+        return Collections.enumeration(names);
+    }
 }
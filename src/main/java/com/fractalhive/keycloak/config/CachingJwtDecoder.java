@@ -0,0 +1,80 @@
+package com.fractalhive.keycloak.config;
+
+import com.fractalhive.keycloak.util.TokenDigests;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * {@link JwtDecoder} that caches successfully decoded tokens in front of another decoder.
+ * <p>
+ * Repeated requests with the same access token skip signature verification and JSON parsing. An entry
+ * never outlives the token's {@code exp} claim, nor the configured maximum time to live. Tokens that fail
+ * to decode are not cached.
+ * </p>
+ * <p>
+ * Entries are keyed by the SHA-256 digest of the token, so the cache holds no bearer credentials.
+ * </p>
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final Cache<String, Jwt> cache;
+
+    public CachingJwtDecoder(JwtDecoder delegate, long maximumSize, Duration maxTtl) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new JwtExpiry(maxTtl))
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        return cache.get(TokenDigests.sha256(token), digest -> delegate.decode(token));
+    }
+
+    /**
+     * The decoded token cache, keyed by token digest, for monitoring.
+     */
+    public Cache<String, Jwt> getCache() {
+        return cache;
+    }
+
+    /**
+     * Expires each entry at the token's {@code exp}, or after {@code maxTtl}, whichever comes first.
+     */
+    private record JwtExpiry(Duration maxTtl) implements Expiry<String, Jwt> {
+
+        @Override
+        public long expireAfterCreate(String digest, Jwt jwt, long currentTime) {
+            Instant expiresAt = jwt.getExpiresAt();
+            if (expiresAt == null) {
+                return maxTtl.toNanos();
+            }
+
+            Duration untilExpiry = Duration.between(Instant.now(), expiresAt);
+            if (untilExpiry.isNegative()) {
+                return 0;
+            }
+            return Math.min(untilExpiry.toNanos(), maxTtl.toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, Jwt jwt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String digest, Jwt jwt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.fractalhive.keycloak.config;
+
+import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+import org.springframework.context.annotation.Conditional;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Matches when {@code fractalhive.keycloak.execution} selects the given mode.
+ * <p>
+ * The property is bound to {@link KeycloakAuthProperties.Execution} with relaxed binding, so
+ * {@code virtual-threads}, {@code VIRTUAL_THREADS} and {@code virtual_threads} all select the same mode,
+ * exactly as {@link KeycloakAuthProperties} reads them. A missing property selects {@code platform}.
+ * </p>
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Conditional(OnExecutionCondition.class)
+public @interface ConditionalOnExecution {
+
+    KeycloakAuthProperties.Execution value();
+}
@@ -0,0 +1,31 @@
+package com.fractalhive.keycloak.config;
+
+import com.fractalhive.keycloak.util.CookieUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.oauth2.server.resource.web.BearerTokenResolver;
+import org.springframework.security.oauth2.server.resource.web.DefaultBearerTokenResolver;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the bearer token from the {@code Authorization} header, falling back to the
+ * {@link JwtCookieAuthenticationFilter#ACCESS_TOKEN_COOKIE} cookie.
+ * <p>
+ * The cookie is read straight from the raw {@code Cookie} header, so cookie authentication needs no
+ * extra filter or request wrapper.
+ * </p>
+ */
+@Component
+public class CookieBearerTokenResolver implements BearerTokenResolver {
+
+    private final DefaultBearerTokenResolver headerTokenResolver = new DefaultBearerTokenResolver();
+
+    @Override
+    public String resolve(HttpServletRequest request) {
+        String token = headerTokenResolver.resolve(request);
+        if (token != null) {
+            return token;
+        }
+
+        return CookieUtils.getCookieValue(request, JwtCookieAuthenticationFilter.ACCESS_TOKEN_COOKIE);
+    }
+}
@@ -2,6 +2,9 @@ package com.fractalhive.keycloak.config;
 
 import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
 import com.fractalhive.keycloak.exception.KeycloakAuthException;
+import com.fractalhive.keycloak.util.TokenDigests;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
@@ -22,6 +25,12 @@ import java.util.stream.Stream;
 /**
  * Converts JWT tokens to Spring Security authentication tokens.
  * Extracts roles from both realm and resource access claims.
+ * <p>
+ * Converted authorities are immutable and cached per token ({@code fractalhive.keycloak.cache.authorities.*}),
+ * so repeated requests with the same access token skip claim parsing. Entries are keyed by issuer and
+ * {@code jti}, because a {@code jti} is only unique within its issuer and one converter may serve several
+ * realms.
+ * </p>
  */
 @Component
 public class JwtAuthConverter implements Converter<Jwt, AbstractAuthenticationToken> {
@@ -31,16 +40,33 @@ public class JwtAuthConverter implements Converter<Jwt, AbstractAuthenticationTo
 
     private final KeycloakAuthProperties properties;
 
+    private final Cache<String, Collection<GrantedAuthority>> authoritiesCache;
+
     public JwtAuthConverter(KeycloakAuthProperties properties) {
         this.properties = properties;
+
+        KeycloakAuthProperties.CacheSpec cacheSpec = properties.getCache().getAuthorities();
+        this.authoritiesCache = cacheSpec.isEnabled()
+                ? Caffeine.newBuilder()
+                        .maximumSize(cacheSpec.getMaximumSize())
+                        .expireAfterWrite(cacheSpec.getTtl())
+                        .recordStats()
+                        .build()
+                : null;
+    }
+
+    /**
+     * Cache of converted authorities, or {@code null} when caching is disabled.
+     */
+    public Cache<String, Collection<GrantedAuthority>> getAuthoritiesCache() {
+        return authoritiesCache;
     }
 
     @Override
     public AbstractAuthenticationToken convert(@NonNull Jwt jwt) {
-        Collection<GrantedAuthority> authorities = Stream.concat(
-                jwtGrantedAuthoritiesConverter.convert(jwt).stream(),
-                extractResourceRoles(jwt).stream()
-        ).collect(Collectors.toSet());
+        Collection<GrantedAuthority> authorities = authoritiesCache != null
+                ? authoritiesCache.get(getCacheKey(jwt), key -> extractAuthorities(jwt))
+                : extractAuthorities(jwt);
 
         return new JwtAuthenticationToken(
                 jwt,
@@ -49,6 +75,25 @@ public class JwtAuthConverter implements Converter<Jwt, AbstractAuthenticationTo
         );
     }
 
+    private Collection<GrantedAuthority> extractAuthorities(Jwt jwt) {
+        return Stream.concat(
+                jwtGrantedAuthoritiesConverter.convert(jwt).stream(),
+                extractResourceRoles(jwt).stream()
+        ).collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Issuer and {@code jti} identify a token uniquely; tokens lacking either are keyed by a digest of
+     * their value.
+     */
+    private String getCacheKey(Jwt jwt) {
+        String issuer = jwt.getClaimAsString(JwtClaimNames.ISS);
+        String jti = jwt.getId();
+        return issuer != null && jti != null
+                ? issuer + " " + jti
+                : TokenDigests.sha256(jwt.getTokenValue());
+    }
+
     private String getPrincipalClaimValue(Jwt jwt) {
         String claimName = JwtClaimNames.SUB;
 
@@ -67,26 +112,26 @@ public class JwtAuthConverter implements Converter<Jwt, AbstractAuthenticationTo
         Map<String, Object> resourceAccess;
         Map<String, Object> resource;
         Collection<String> resourceRoles;
-        
+
         if (jwt.getClaim("resource_access") == null) {
             return Set.of();
         }
-        
+
         resourceAccess = jwt.getClaim("resource_access");
-        String resourceId = properties.getResourceId() != null 
-                ? properties.getResourceId() 
+        String resourceId = properties.getResourceId() != null
+                ? properties.getResourceId()
                 : properties.getClientId();
 
         if (resourceAccess.get(resourceId) == null) {
             return Set.of();
         }
-        
+
         resource = (Map<String, Object>) resourceAccess.get(resourceId);
 
         if (resource.get("roles") == null) {
             return Set.of();
         }
-        
+
         resourceRoles = (Collection<String>) resource.get("roles");
 
         return resourceRoles
@@ -1,12 +1,11 @@
 package com.fractalhive.keycloak.config;
 
+import com.fractalhive.keycloak.util.CookieUtils;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
-import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpHeaders;
-import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
@@ -14,8 +13,12 @@ import java.io.IOException;
 /**
  * Filter that extracts JWT from cookies and adds it to Authorization header.
  * Supports both cookie and header-based authentication.
+ * <p>
+ * Only installed in legacy mode ({@code fractalhive.keycloak.cookie.legacy-authorization-header=true}),
+ * for downstream code that reads the token from the {@code Authorization} header itself. Token resolution
+ * for authentication is handled by {@link CookieBearerTokenResolver} either way.
+ * </p>
  */
-@Component
 public class JwtCookieAuthenticationFilter extends OncePerRequestFilter {
 
     public static final String ACCESS_TOKEN_COOKIE = "ACCESS_TOKEN";
@@ -32,19 +35,13 @@ public class JwtCookieAuthenticationFilter extends OncePerRequestFilter {
 
         // If Authorization header already exists, don't override
         if (request.getHeader(HttpHeaders.AUTHORIZATION) == null) {
+            String accessToken = CookieUtils.getCookieValue(request, ACCESS_TOKEN_COOKIE);
 
-            Cookie[] cookies = request.getCookies();
-
-            if (cookies != null) {
-                for (Cookie cookie : cookies) {
-                    if (ACCESS_TOKEN_COOKIE.equals(cookie.getName())) {
-                        newRequest = new AuthorizationHeaderRequestWrapper(
-                                request,
-                                "Bearer " + cookie.getValue()
-                        );
-                        break;
-                    }
-                }
+            if (accessToken != null) {
+                newRequest = new AuthorizationHeaderRequestWrapper(
+                        request,
+                        "Bearer " + accessToken
+                );
             }
         }
 
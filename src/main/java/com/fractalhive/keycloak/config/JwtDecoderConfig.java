@@ -0,0 +1,118 @@
+package com.fractalhive.keycloak.config;
+
+import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+import com.fractalhive.keycloak.service.KeycloakEndpoints;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Configuration of the {@link JwtDecoder} used by the resource server.
+ */
+@Configuration
+public class JwtDecoderConfig {
+
+    /**
+     * JWK set of the configured realm, warmed at startup and refreshed in the background.
+     * <p>
+     * Fetched from {@code spring.security.oauth2.resourceserver.jwt.jwk-set-uri} when set, otherwise from
+     * the realm's {@code /protocol/openid-connect/certs} endpoint.
+     * </p>
+     */
+    @Bean
+    @ConditionalOnMissingBean(JwtDecoder.class)
+    @ConditionalOnProperty(prefix = "fractalhive.keycloak.jwks", name = "enabled", matchIfMissing = true)
+    public KeycloakJwkSetCache keycloakJwkSetCache(
+            WebClient keycloakWebClient,
+            KeycloakAuthProperties properties,
+            KeycloakEndpoints endpoints,
+            Environment environment
+    ) {
+        String jwkSetUri = environment.getProperty("spring.security.oauth2.resourceserver.jwt.jwk-set-uri");
+        if (!StringUtils.hasText(jwkSetUri)) {
+            jwkSetUri = endpoints.certs().toString();
+        }
+
+        return new KeycloakJwkSetCache(keycloakWebClient, jwkSetUri, properties.getJwks());
+    }
+
+    /**
+     * Resource server decoder that verifies signatures against {@link KeycloakJwkSetCache}, so token
+     * verification never fetches keys inline.
+     * <p>
+     * Validates the issuer from {@code spring.security.oauth2.resourceserver.jwt.issuer-uri}, falling back
+     * to the configured realm's issuer.
+     * </p>
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "fractalhive.keycloak.jwks", name = "enabled", matchIfMissing = true)
+    public JwtDecoder jwtDecoder(
+            KeycloakJwkSetCache keycloakJwkSetCache,
+            KeycloakAuthProperties properties,
+            Environment environment
+    ) {
+        String issuerUri = environment.getProperty("spring.security.oauth2.resourceserver.jwt.issuer-uri");
+        if (!StringUtils.hasText(issuerUri)) {
+            issuerUri = properties.getJwtIssuerUri();
+        }
+
+        return createJwtDecoder(keycloakJwkSetCache, issuerUri);
+    }
+
+    /**
+     * Decoder verifying signatures against {@code keys} and validating the token's timestamps and issuer.
+     */
+    static JwtDecoder createJwtDecoder(JWKSource<SecurityContext> keys, String issuerUri) {
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.Family.SIGNATURE, keys));
+        // Claims are validated by the Spring Security validators below
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+
+        NimbusJwtDecoder jwtDecoder = new NimbusJwtDecoder(jwtProcessor);
+        jwtDecoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuerUri));
+        return jwtDecoder;
+    }
+
+    /**
+     * Wraps the resource server's {@link JwtDecoder} in a {@link CachingJwtDecoder} when
+     * {@code fractalhive.keycloak.cache.jwt.enabled=true}.
+     * <p>
+     * Applies to the decoder auto-configured from {@code spring.security.oauth2.resourceserver.jwt.*}
+     * as well as to a decoder defined by the application.
+     * </p>
+     */
+    @Bean
+    public static BeanPostProcessor cachingJwtDecoderPostProcessor(ObjectProvider<KeycloakAuthProperties> properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof JwtDecoder decoder) || bean instanceof CachingJwtDecoder) {
+                    return bean;
+                }
+
+                KeycloakAuthProperties.CacheSpec cacheSpec = properties.getObject().getCache().getJwt();
+                if (!cacheSpec.isEnabled()) {
+                    return bean;
+                }
+
+                return new CachingJwtDecoder(decoder, cacheSpec.getMaximumSize(), cacheSpec.getTtl());
+            }
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package com.fractalhive.keycloak.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationManagerResolver;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+
+/**
+ * Authenticates JWT bearer tokens locally and opaque bearer tokens by introspection.
+ * <p>
+ * A token of three dot-separated parts is a signed JWT and goes to the JWT authentication manager, which
+ * is realm-aware when multi-realm support is enabled; any other token is introspected. Opaque tokens are
+ * introspected in {@code fractalhive.keycloak.realm}.
+ * </p>
+ */
+public class KeycloakBearerTokenAuthenticationManagerResolver implements AuthenticationManagerResolver<HttpServletRequest> {
+
+    private final AuthenticationManagerResolver<HttpServletRequest> jwtAuthenticationManagerResolver;
+    private final AuthenticationManager opaqueTokenAuthenticationManager;
+
+    public KeycloakBearerTokenAuthenticationManagerResolver(
+            AuthenticationManagerResolver<HttpServletRequest> jwtAuthenticationManagerResolver,
+            AuthenticationManager opaqueTokenAuthenticationManager
+    ) {
+        this.jwtAuthenticationManagerResolver = jwtAuthenticationManagerResolver;
+        this.opaqueTokenAuthenticationManager = opaqueTokenAuthenticationManager;
+    }
+
+    @Override
+    public AuthenticationManager resolve(HttpServletRequest request) {
+        return authentication -> {
+            if (authentication instanceof BearerTokenAuthenticationToken bearer && !isJwt(bearer.getToken())) {
+                return opaqueTokenAuthenticationManager.authenticate(authentication);
+            }
+            return jwtAuthenticationManagerResolver.resolve(request).authenticate(authentication);
+        };
+    }
+
+    private static boolean isJwt(String token) {
+        int first = token.indexOf('.');
+        int second = first >= 0 ? token.indexOf('.', first + 1) : -1;
+        return second > 0 && token.indexOf('.', second + 1) < 0;
+    }
+}
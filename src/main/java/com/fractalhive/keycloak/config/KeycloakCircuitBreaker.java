@@ -0,0 +1,142 @@
+package com.fractalhive.keycloak.config;
+
+import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+
+/**
+ * Count-based circuit breaker for one class of Keycloak traffic.
+ * <p>
+ * Records the outcome of the last {@code slidingWindowSize} calls. When the failure rate reaches the
+ * threshold, the circuit opens and rejects calls for {@code openDuration}. It then lets
+ * {@code halfOpenCalls} trial calls through: if they all succeed the circuit closes, otherwise it opens again.
+ * </p>
+ */
+class KeycloakCircuitBreaker {
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final boolean enabled;
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+
+    private final boolean[] window;
+    private int windowIndex;
+    private int recordedCalls;
+    private int failedCalls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int trialPermits;
+    private int trialSuccesses;
+
+    KeycloakCircuitBreaker(KeycloakAuthProperties.CircuitBreaker properties) {
+        this.enabled = properties.isEnabled();
+        this.failureRateThreshold = properties.getFailureRateThreshold();
+        this.minimumCalls = Math.min(properties.getMinimumCalls(), properties.getSlidingWindowSize());
+        this.openDurationNanos = properties.getOpenDuration().toNanos();
+        this.halfOpenCalls = Math.max(1, properties.getHalfOpenCalls());
+        this.window = new boolean[Math.max(1, properties.getSlidingWindowSize())];
+    }
+
+    /**
+     * Ask for permission to make a call. A permitted call must be reported through {@link #onSuccess()},
+     * {@link #onFailure()} or {@link #onIgnored()}.
+     */
+    synchronized boolean tryAcquire() {
+        if (!enabled) {
+            return true;
+        }
+
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openDurationNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialPermits = halfOpenCalls;
+            trialSuccesses = 0;
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (trialPermits == 0) {
+                return false;
+            }
+            trialPermits--;
+        }
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        if (!enabled) {
+            return;
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (++trialSuccesses >= halfOpenCalls) {
+                close();
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    synchronized void onFailure() {
+        if (!enabled) {
+            return;
+        }
+
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recordedCalls >= minimumCalls && failedCalls * 100 >= failureRateThreshold * recordedCalls) {
+                open();
+            }
+        }
+    }
+
+    /**
+     * Report a permitted call that ended without an outcome, e.g. because it was cancelled.
+     */
+    synchronized void onIgnored() {
+        if (enabled && state == State.HALF_OPEN && trialPermits < halfOpenCalls - trialSuccesses) {
+            trialPermits++;
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failed) {
+        if (recordedCalls == window.length) {
+            if (window[windowIndex]) {
+                failedCalls--;
+            }
+        } else {
+            recordedCalls++;
+        }
+
+        window[windowIndex] = failed;
+        if (failed) {
+            failedCalls++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        windowIndex = 0;
+        recordedCalls = 0;
+        failedCalls = 0;
+    }
+}
@@ -0,0 +1,60 @@
+package com.fractalhive.keycloak.config;
+
+import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+import io.netty.channel.ChannelOption;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Pooled Reactor Netty transport for Keycloak calls, configured through {@code fractalhive.keycloak.http.*}.
+ * <p>
+ * Keycloak traffic gets its own connection pool instead of the shared default one, with bounded waits
+ * for connections and responses and background eviction of idle connections. Neither the pool nor the
+ * connector is exposed as a bean of a generic type, so the application's own HTTP clients are unaffected.
+ * Not used in virtual-thread mode, where {@link VirtualThreadExecutionConfig} provides the transport.
+ * </p>
+ */
+@Configuration
+@ConditionalOnClass(HttpClient.class)
+@ConditionalOnExecution(KeycloakAuthProperties.Execution.PLATFORM)
+public class KeycloakHttpClientConfig {
+
+    /**
+     * Transport for Keycloak calls, used by {@link WebClientConfig} only.
+     * <p>
+     * The connection pool is owned by the returned connector and disposed with it.
+     * </p>
+     */
+    @Bean
+    public KeycloakHttpConnector keycloakHttpConnector(KeycloakAuthProperties properties) {
+        KeycloakAuthProperties.Http http = properties.getHttp();
+
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("keycloak")
+                .maxConnections(http.getMaxConnections())
+                .pendingAcquireMaxCount(http.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(http.getPendingAcquireTimeout())
+                .maxIdleTime(http.getMaxIdleTime())
+                .maxLifeTime(http.getMaxLifeTime())
+                .evictInBackground(http.getEvictionInterval())
+                .build();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) http.getConnectTimeout().toMillis())
+                .responseTimeout(http.getResponseTimeout())
+                .compress(http.isCompression())
+                .keepAlive(true);
+
+        if (http.isHttp2()) {
+            httpClient = httpClient
+                    .protocol(HttpProtocol.H2, HttpProtocol.HTTP11)
+                    .secure();
+        }
+
+        return new KeycloakHttpConnector(new ReactorClientHttpConnector(httpClient), connectionProvider::dispose);
+    }
+}
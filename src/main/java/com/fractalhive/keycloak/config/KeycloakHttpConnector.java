@@ -0,0 +1,32 @@
+package com.fractalhive.keycloak.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+
+/**
+ * Transport of the Keycloak {@code WebClient}.
+ * <p>
+ * The {@link ClientHttpConnector} is wrapped in a starter-specific type, so the application's own
+ * {@code WebClient}s never pick up Keycloak's connection pool and timeouts by injecting a
+ * {@code ClientHttpConnector}. Releases the transport's resources (connection pool, client) on shutdown.
+ * </p>
+ */
+public final class KeycloakHttpConnector implements DisposableBean {
+
+    private final ClientHttpConnector connector;
+    private final Runnable release;
+
+    public KeycloakHttpConnector(ClientHttpConnector connector, Runnable release) {
+        this.connector = connector;
+        this.release = release;
+    }
+
+    public ClientHttpConnector getConnector() {
+        return connector;
+    }
+
+    @Override
+    public void destroy() {
+        release.run();
+    }
+}
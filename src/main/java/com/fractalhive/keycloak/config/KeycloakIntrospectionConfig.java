@@ -0,0 +1,63 @@
+package com.fractalhive.keycloak.config;
+
+import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+import com.fractalhive.keycloak.service.KeycloakEndpoints;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationManagerResolver;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
+import org.springframework.security.oauth2.server.resource.authentication.OpaqueTokenAuthenticationProvider;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Opaque access token support, enabled by {@code fractalhive.keycloak.introspection.enabled=true}.
+ *
+ * @see KeycloakOpaqueTokenIntrospector
+ * @see KeycloakBearerTokenAuthenticationManagerResolver
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "fractalhive.keycloak.introspection", name = "enabled")
+public class KeycloakIntrospectionConfig {
+
+    @Bean
+    public KeycloakOpaqueTokenIntrospector keycloakOpaqueTokenIntrospector(
+            WebClient keycloakWebClient,
+            KeycloakAuthProperties properties,
+            KeycloakEndpoints endpoints,
+            JwtAuthConverter jwtAuthConverter
+    ) {
+        return new KeycloakOpaqueTokenIntrospector(keycloakWebClient, properties, endpoints, jwtAuthConverter);
+    }
+
+    /**
+     * Sends JWTs to the tenant resolver when multi-realm support is enabled, otherwise to the
+     * application's {@link JwtDecoder}, and opaque tokens to the introspector.
+     */
+    @Bean
+    public KeycloakBearerTokenAuthenticationManagerResolver keycloakBearerTokenAuthenticationManagerResolver(
+            KeycloakOpaqueTokenIntrospector keycloakOpaqueTokenIntrospector,
+            JwtDecoder jwtDecoder,
+            JwtAuthConverter jwtAuthConverter,
+            ObjectProvider<KeycloakTenantAuthenticationManagerResolver> tenantAuthenticationManagerResolver
+    ) {
+        AuthenticationManagerResolver<HttpServletRequest> jwtAuthenticationManagerResolver =
+                tenantAuthenticationManagerResolver.getIfAvailable();
+        if (jwtAuthenticationManagerResolver == null) {
+            JwtAuthenticationProvider jwtAuthenticationProvider = new JwtAuthenticationProvider(jwtDecoder);
+            jwtAuthenticationProvider.setJwtAuthenticationConverter(jwtAuthConverter);
+            AuthenticationManager jwtAuthenticationManager = new ProviderManager(jwtAuthenticationProvider);
+            jwtAuthenticationManagerResolver = request -> jwtAuthenticationManager;
+        }
+
+        return new KeycloakBearerTokenAuthenticationManagerResolver(
+                jwtAuthenticationManagerResolver,
+                new ProviderManager(new OpaqueTokenAuthenticationProvider(keycloakOpaqueTokenIntrospector))
+        );
+    }
+}
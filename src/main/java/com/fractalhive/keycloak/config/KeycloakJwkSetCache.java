@@ -0,0 +1,157 @@
+package com.fractalhive.keycloak.config;
+
+import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+import com.fractalhive.keycloak.service.KeycloakOperation;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.text.ParseException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Starter-managed cache of a realm's JSON Web Key Set, used to verify access token signatures.
+ * <p>
+ * The key set is fetched when the application starts and then refreshed in the background, both on a
+ * fixed schedule and when a token references an unknown {@code kid}. Unknown-{@code kid} refreshes are
+ * rate-limited, so a flood of tokens with made-up key ids causes at most one fetch per
+ * {@code jwks.min-refresh-interval}. Key lookups never perform network I/O: a token signed with a key that
+ * is not cached yet is rejected until the background refresh has picked the key up.
+ * </p>
+ */
+@Slf4j
+public class KeycloakJwkSetCache implements JWKSource<SecurityContext>, SmartLifecycle {
+
+    /**
+     * Lifecycle phase, ahead of the embedded web server ({@code DEFAULT_PHASE - 2048}), so the key set is
+     * warmed before the first request is accepted.
+     */
+    static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final WebClient webClient;
+    private final String jwkSetUri;
+    private final KeycloakAuthProperties.Jwks settings;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final AtomicLong lastRefreshRequest = new AtomicLong();
+
+    private volatile JWKSet jwkSet;
+    private volatile Disposable scheduledRefresh;
+
+    public KeycloakJwkSetCache(WebClient webClient, String jwkSetUri, KeycloakAuthProperties.Jwks settings) {
+        this.webClient = webClient;
+        this.jwkSetUri = jwkSetUri;
+        this.settings = settings;
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) {
+        JWKSet keys = jwkSet;
+        if (keys == null) {
+            requestRefresh();
+            return List.of();
+        }
+
+        List<JWK> matches = jwkSelector.select(keys);
+        if (matches.isEmpty()) {
+            // Unknown kid, typically after a key rotation in Keycloak
+            requestRefresh();
+        }
+        return matches;
+    }
+
+    /**
+     * Fetch the key set now, replacing the cached one on success.
+     */
+    public Mono<JWKSet> refresh() {
+        return webClient
+                .get()
+                .uri(jwkSetUri)
+                .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.FETCH_JWKS)
+                .retrieve()
+                .bodyToMono(String.class)
+                .<JWKSet>handle((body, sink) -> {
+                    try {
+                        sink.next(JWKSet.parse(body));
+                    } catch (ParseException ex) {
+                        sink.error(new IllegalStateException("Invalid JWK set returned by " + jwkSetUri, ex));
+                    }
+                })
+                .doOnNext(keys -> jwkSet = keys);
+    }
+
+    @Override
+    public void start() {
+        try {
+            refresh().block(settings.getWarmupTimeout());
+        } catch (RuntimeException ex) {
+            log.warn("Could not load the JWK set from {} at startup, retrying in the background: {}",
+                    jwkSetUri, ex.getMessage());
+        }
+
+        scheduleRefresh();
+    }
+
+    /**
+     * Refresh the key set every {@code jwks.refresh-interval} from now on, without fetching it first.
+     */
+    public void scheduleRefresh() {
+        scheduledRefresh = Flux.interval(settings.getRefreshInterval(), settings.getRefreshInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> refreshQuietly())
+                .subscribe();
+    }
+
+    @Override
+    public void stop() {
+        Disposable task = scheduledRefresh;
+        if (task != null) {
+            task.dispose();
+            scheduledRefresh = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduledRefresh != null;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void requestRefresh() {
+        long now = System.nanoTime();
+        long last = lastRefreshRequest.get();
+        if (last != 0 && now - last < settings.getMinRefreshInterval().toNanos()) {
+            return;
+        }
+        if (lastRefreshRequest.compareAndSet(last, now)) {
+            refreshQuietly().subscribe();
+        }
+    }
+
+    private Mono<JWKSet> refreshQuietly() {
+        return Mono.defer(() -> {
+            if (!refreshing.compareAndSet(false, true)) {
+                return Mono.empty();
+            }
+
+            return refresh()
+                    .doOnError(ex -> log.warn("Refreshing the JWK set from {} failed: {}", jwkSetUri, ex.getMessage()))
+                    .onErrorResume(ex -> Mono.empty())
+                    .doFinally(signal -> refreshing.set(false));
+        });
+    }
+}
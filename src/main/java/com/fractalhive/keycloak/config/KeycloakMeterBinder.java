@@ -0,0 +1,119 @@
+package com.fractalhive.keycloak.config;
+
+import com.fractalhive.keycloak.service.KeycloakAdminTokenManager;
+import com.fractalhive.keycloak.service.KeycloakOperation.Traffic;
+import com.fractalhive.keycloak.service.KeycloakUserDirectory;
+import com.fractalhive.keycloak.service.ReactiveKeycloakRoleService;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registers gauges for the starter's internal state.
+ * <ul>
+ *     <li>{@code keycloak.admin.token.remaining}: remaining lifetime of the cached admin token</li>
+ *     <li>{@code cache.*} meters (gets by hit/miss, evictions, size) for every enabled starter cache:
+ *     {@code keycloak.authorities}, {@code keycloak.jwt}, {@code keycloak.effective-roles},
+ *     {@code keycloak.users.by-email} and {@code keycloak.users.by-id}</li>
+ *     <li>{@code keycloak.circuit-breaker.state}: {@code 1} for the current state of each traffic class's
+ *     circuit breaker, {@code 0} for the others</li>
+ *     <li>{@code keycloak.bulkhead.active-calls}: calls of each traffic class currently waiting on Keycloak</li>
+ *     <li>{@code cache.*} meters for {@code keycloak.realms}, the tenant realms currently served, when
+ *     multi-realm support is enabled, and {@code keycloak.introspection}, the cached opaque token
+ *     introspection results, when introspection is enabled</li>
+ * </ul>
+ * <p>
+ * Collaborators are resolved when the binder is bound, not when it is created.
+ * </p>
+ */
+public class KeycloakMeterBinder implements MeterBinder {
+
+    private final String realm;
+    private final ObjectProvider<KeycloakAdminTokenManager> adminTokenManager;
+    private final ObjectProvider<JwtAuthConverter> jwtAuthConverter;
+    private final ObjectProvider<JwtDecoder> jwtDecoder;
+    private final ObjectProvider<ReactiveKeycloakRoleService> roleService;
+    private final ObjectProvider<KeycloakUserDirectory> userDirectory;
+    private final ObjectProvider<KeycloakResilienceFilter> resilienceFilter;
+    private final ObjectProvider<KeycloakRealmRegistry> realmRegistry;
+    private final ObjectProvider<KeycloakOpaqueTokenIntrospector> opaqueTokenIntrospector;
+
+    public KeycloakMeterBinder(
+            String realm,
+            ObjectProvider<KeycloakAdminTokenManager> adminTokenManager,
+            ObjectProvider<JwtAuthConverter> jwtAuthConverter,
+            ObjectProvider<JwtDecoder> jwtDecoder,
+            ObjectProvider<ReactiveKeycloakRoleService> roleService,
+            ObjectProvider<KeycloakUserDirectory> userDirectory,
+            ObjectProvider<KeycloakResilienceFilter> resilienceFilter,
+            ObjectProvider<KeycloakRealmRegistry> realmRegistry,
+            ObjectProvider<KeycloakOpaqueTokenIntrospector> opaqueTokenIntrospector
+    ) {
+        this.realm = realm;
+        this.adminTokenManager = adminTokenManager;
+        this.jwtAuthConverter = jwtAuthConverter;
+        this.jwtDecoder = jwtDecoder;
+        this.roleService = roleService;
+        this.userDirectory = userDirectory;
+        this.resilienceFilter = resilienceFilter;
+        this.realmRegistry = realmRegistry;
+        this.opaqueTokenIntrospector = opaqueTokenIntrospector;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Tags tags = Tags.of("realm", realm);
+
+        adminTokenManager.ifAvailable(tokenManager -> TimeGauge
+                .builder("keycloak.admin.token.remaining", tokenManager, TimeUnit.MILLISECONDS,
+                        manager -> manager.getRemainingLifetime().toMillis())
+                .description("Remaining lifetime of the cached Keycloak admin token")
+                .tags(tags)
+                .register(registry));
+
+        jwtAuthConverter.ifAvailable(converter -> monitor(registry, converter.getAuthoritiesCache(), "keycloak.authorities", tags));
+        jwtDecoder.ifUnique(decoder -> {
+            if (decoder instanceof CachingJwtDecoder cachingJwtDecoder) {
+                monitor(registry, cachingJwtDecoder.getCache(), "keycloak.jwt", tags);
+            }
+        });
+        roleService.ifAvailable(service -> monitor(registry, service.getEffectiveRolesCache(), "keycloak.effective-roles", tags));
+        userDirectory.ifAvailable(directory -> {
+            monitor(registry, directory.getUsersByEmailCache(), "keycloak.users.by-email", tags);
+            monitor(registry, directory.getUsersByIdCache(), "keycloak.users.by-id", tags);
+        });
+        opaqueTokenIntrospector.ifAvailable(introspector -> monitor(registry, introspector.getCache(), "keycloak.introspection", tags));
+        realmRegistry.ifAvailable(realms -> monitor(registry, realms.getRealmCache(), "keycloak.realms", tags));
+        resilienceFilter.ifAvailable(filter -> {
+            for (Traffic traffic : Traffic.values()) {
+                Tags trafficTags = tags.and("traffic", traffic.tagValue());
+                for (KeycloakCircuitBreaker.State state : KeycloakCircuitBreaker.State.values()) {
+                    Gauge.builder("keycloak.circuit-breaker.state", filter,
+                                    f -> f.getCircuitBreakerState(traffic).equals(state.name()) ? 1 : 0)
+                            .description("Whether the Keycloak circuit breaker is in the given state")
+                            .tags(trafficTags.and("state", state.name().toLowerCase(Locale.ROOT).replace('_', '-')))
+                            .register(registry);
+                }
+                Gauge.builder("keycloak.bulkhead.active-calls", filter, f -> f.getActiveCalls(traffic))
+                        .description("Keycloak calls currently in flight")
+                        .tags(trafficTags)
+                        .register(registry);
+            }
+        });
+    }
+
+    private static void monitor(MeterRegistry registry, Cache<?, ?> cache, String name, Tags tags) {
+        if (cache != null) {
+            CaffeineCacheMetrics.monitor(registry, cache, name, tags);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.fractalhive.keycloak.config;
+
+import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+import com.fractalhive.keycloak.service.KeycloakAdminTokenManager;
+import com.fractalhive.keycloak.service.KeycloakUserDirectory;
+import com.fractalhive.keycloak.service.ReactiveKeycloakRoleService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.util.function.SingletonSupplier;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+
+/**
+ * Micrometer instrumentation of Keycloak calls, active when Micrometer is on the classpath.
+ * <p>
+ * Uses the application's {@link MeterRegistry} (e.g. from Spring Boot Actuator), falling back to
+ * Micrometer's global registry.
+ * </p>
+ */
+@Configuration
+@ConditionalOnClass(MeterRegistry.class)
+@ConditionalOnProperty(prefix = "fractalhive.keycloak.metrics", name = "enabled", matchIfMissing = true)
+public class KeycloakMetricsConfig {
+
+    /**
+     * Times every call made through the Keycloak {@code WebClient}.
+     */
+    @Bean
+    public ExchangeFilterFunction keycloakMetricsFilter(
+            ObjectProvider<MeterRegistry> meterRegistry,
+            KeycloakAuthProperties properties
+    ) {
+        return new KeycloakMetricsFilter(
+                SingletonSupplier.of(() -> meterRegistry.getIfUnique(() -> Metrics.globalRegistry)),
+                properties.getRealm(),
+                properties.getMetrics().isPercentileHistogram()
+        );
+    }
+
+    /**
+     * Admin token lifetime, cache, circuit breaker and bulkhead gauges.
+     */
+    @Bean
+    public MeterBinder keycloakMeterBinder(
+            KeycloakAuthProperties properties,
+            ObjectProvider<KeycloakAdminTokenManager> adminTokenManager,
+            ObjectProvider<JwtAuthConverter> jwtAuthConverter,
+            ObjectProvider<JwtDecoder> jwtDecoder,
+            ObjectProvider<ReactiveKeycloakRoleService> roleService,
+            ObjectProvider<KeycloakUserDirectory> userDirectory,
+            ObjectProvider<KeycloakResilienceFilter> resilienceFilter,
+            ObjectProvider<KeycloakRealmRegistry> realmRegistry,
+            ObjectProvider<KeycloakOpaqueTokenIntrospector> opaqueTokenIntrospector
+    ) {
+        return new KeycloakMeterBinder(
+                properties.getRealm(),
+                adminTokenManager,
+                jwtAuthConverter,
+                jwtDecoder,
+                roleService,
+                userDirectory,
+                resilienceFilter,
+                realmRegistry,
+                opaqueTokenIntrospector
+        );
+    }
+}
@@ -0,0 +1,131 @@
+package com.fractalhive.keycloak.config;
+
+import com.fractalhive.keycloak.service.KeycloakOperation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * {@link ExchangeFilterFunction} that times every Keycloak call.
+ * <p>
+ * Records the {@value #METRIC_NAME} timer, tagged with the {@link KeycloakOperation} of the call, the realm
+ * addressed by the request URL (the configured realm for URLs without one), the response status and the
+ * outcome ({@code SUCCESS}, {@code CLIENT_ERROR}, {@code SERVER_ERROR}, ...).
+ * Calls that fail without a response are tagged with status {@code IO_ERROR}, calls cancelled before the
+ * response arrived with status {@code CANCELLED}.
+ * </p>
+ */
+public class KeycloakMetricsFilter implements ExchangeFilterFunction {
+
+    public static final String METRIC_NAME = "keycloak.client.requests";
+
+    private final Supplier<MeterRegistry> meterRegistry;
+    private static final String REALMS_SEGMENT = "/realms/";
+
+    private final String defaultRealm;
+    private final boolean percentileHistogram;
+
+    /**
+     * @param meterRegistry supplies the registry on first use, so the filter can be created before it
+     * @param defaultRealm  realm tag of calls whose URL names no realm
+     */
+    public KeycloakMetricsFilter(Supplier<MeterRegistry> meterRegistry, String defaultRealm, boolean percentileHistogram) {
+        this.meterRegistry = meterRegistry;
+        this.defaultRealm = defaultRealm;
+        this.percentileHistogram = percentileHistogram;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        String operation = request.attribute(KeycloakOperation.ATTRIBUTE)
+                .map(value -> value instanceof KeycloakOperation keycloakOperation
+                        ? keycloakOperation.tagValue()
+                        : value.toString())
+                .orElse("unknown");
+        String realm = realmOf(request.url().getRawPath());
+
+        return Mono.defer(() -> {
+            MeterRegistry registry = meterRegistry.get();
+            Timer.Sample sample = Timer.start(registry);
+            AtomicBoolean recorded = new AtomicBoolean();
+
+            return next.exchange(request)
+                    .doOnNext(response -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            int status = response.statusCode().value();
+                            stop(registry, sample, operation, realm, String.valueOf(status), outcome(status));
+                        }
+                    })
+                    .doOnError(ex -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            stop(registry, sample, operation, realm, "IO_ERROR", "UNKNOWN");
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            stop(registry, sample, operation, realm, "CANCELLED", "UNKNOWN");
+                        }
+                    });
+        });
+    }
+
+    private void stop(
+            MeterRegistry registry,
+            Timer.Sample sample,
+            String operation,
+            String realm,
+            String status,
+            String outcome
+    ) {
+        sample.stop(Timer.builder(METRIC_NAME)
+                .description("Calls from the Keycloak starter to Keycloak")
+                .tags(Tags.of(
+                        "operation", operation,
+                        "realm", realm,
+                        "status", status,
+                        "outcome", outcome
+                ))
+                .publishPercentileHistogram(percentileHistogram)
+                .register(registry));
+    }
+
+    /**
+     * Realm in a {@code .../realms/<realm>/...} path, which covers both the OpenID Connect and the Admin API
+     * endpoints.
+     */
+    private String realmOf(String path) {
+        int segment = path != null ? path.indexOf(REALMS_SEGMENT) : -1;
+        if (segment < 0) {
+            return defaultRealm;
+        }
+
+        int start = segment + REALMS_SEGMENT.length();
+        int end = path.indexOf('/', start);
+        String realm = end < 0 ? path.substring(start) : path.substring(start, end);
+        return realm.isEmpty() ? defaultRealm : realm;
+    }
+
+    private static String outcome(int status) {
+        if (status >= 200 && status < 300) {
+            return "SUCCESS";
+        }
+        if (status >= 300 && status < 400) {
+            return "REDIRECTION";
+        }
+        if (status >= 400 && status < 500) {
+            return "CLIENT_ERROR";
+        }
+        if (status >= 500 && status < 600) {
+            return "SERVER_ERROR";
+        }
+        return "UNKNOWN";
+    }
+}
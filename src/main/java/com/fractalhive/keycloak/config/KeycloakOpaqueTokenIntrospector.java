@@ -0,0 +1,223 @@
+package com.fractalhive.keycloak.config;
+
+import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+import com.fractalhive.keycloak.service.KeycloakEndpoints;
+import com.fractalhive.keycloak.service.KeycloakOperation;
+import com.fractalhive.keycloak.util.SingleFlight;
+import com.fractalhive.keycloak.util.TokenDigests;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.core.OAuth2TokenIntrospectionClaimNames;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.introspection.BadOpaqueTokenException;
+import org.springframework.security.oauth2.server.resource.introspection.OAuth2IntrospectionAuthenticatedPrincipal;
+import org.springframework.security.oauth2.server.resource.introspection.OAuth2IntrospectionException;
+import org.springframework.security.oauth2.server.resource.introspection.OpaqueTokenIntrospector;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validates opaque access tokens with Keycloak's token introspection endpoint.
+ * <p>
+ * Introspection results are cached per token, keyed by the token's SHA-256 digest so the cache holds no
+ * bearer credentials. An active token's result is reused until the token's {@code exp}, but at most
+ * {@code introspection.ttl}; an inactive token is remembered for {@code introspection.negative-ttl}.
+ * Concurrent requests with the same uncached token share a single introspection call, and at most
+ * {@code introspection.max-concurrent-calls} calls are in flight; further requests wait up to
+ * {@code introspection.max-wait} for a free slot.
+ * </p>
+ * <p>
+ * Authorities are derived from the introspected claims by {@link JwtAuthConverter}, so an opaque token
+ * grants the same authorities as the equivalent JWT.
+ * </p>
+ */
+public class KeycloakOpaqueTokenIntrospector implements OpaqueTokenIntrospector {
+
+    private static final ParameterizedTypeReference<Map<String, Object>> CLAIMS =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private static final Set<String> TIMESTAMP_CLAIMS = Set.of(
+            OAuth2TokenIntrospectionClaimNames.EXP,
+            OAuth2TokenIntrospectionClaimNames.IAT,
+            OAuth2TokenIntrospectionClaimNames.NBF
+    );
+
+    private final WebClient webClient;
+    private final KeycloakAuthProperties properties;
+    private final KeycloakEndpoints endpoints;
+    private final JwtAuthConverter jwtAuthConverter;
+
+    private final Cache<String, Introspection> cache;
+    private final SingleFlight<String, Introspection> introspections = new SingleFlight<>();
+    private final Semaphore permits;
+
+    public KeycloakOpaqueTokenIntrospector(
+            WebClient webClient,
+            KeycloakAuthProperties properties,
+            KeycloakEndpoints endpoints,
+            JwtAuthConverter jwtAuthConverter
+    ) {
+        this.webClient = webClient;
+        this.properties = properties;
+        this.endpoints = endpoints;
+        this.jwtAuthConverter = jwtAuthConverter;
+
+        KeycloakAuthProperties.Introspection settings = properties.getIntrospection();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(settings.getMaximumSize())
+                .expireAfter(new IntrospectionExpiry(settings.getTtl(), settings.getNegativeTtl()))
+                .recordStats()
+                .build();
+        this.permits = new Semaphore(settings.getMaxConcurrentCalls());
+    }
+
+    @Override
+    public OAuth2AuthenticatedPrincipal introspect(String token) {
+        String digest = TokenDigests.sha256(token);
+        Introspection introspection = cache.getIfPresent(digest);
+        if (introspection == null) {
+            introspection = introspections.execute(digest, key -> requestIntrospection(token, key)).block();
+        }
+
+        if (introspection == null || !introspection.active()) {
+            throw new BadOpaqueTokenException("Provided token isn't active");
+        }
+        return introspection.principal();
+    }
+
+    /**
+     * Cache of introspection results, keyed by token digest, for monitoring.
+     */
+    public Cache<String, Introspection> getCache() {
+        return cache;
+    }
+
+    private Mono<Introspection> requestIntrospection(String token, String digest) {
+        return Mono.using(
+                        this::acquirePermit,
+                        permit -> webClient
+                                .post()
+                                .uri(endpoints.introspect())
+                                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                                .body(BodyInserters
+                                        .fromFormData("client_id", properties.getClientId())
+                                        .with("client_secret", properties.getClientSecret())
+                                        .with("token", token)
+                                )
+                                .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.INTROSPECT)
+                                .retrieve()
+                                .bodyToMono(CLAIMS),
+                        Semaphore::release
+                )
+                .map(claims -> toIntrospection(token, claims))
+                .doOnNext(introspection -> cache.put(digest, introspection))
+                .onErrorMap(WebClientResponseException.class, ex -> new OAuth2IntrospectionException(
+                        "Token introspection failed: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ))
+                .onErrorMap(ex -> !(ex instanceof OAuth2IntrospectionException),
+                        ex -> new OAuth2IntrospectionException("Token introspection failed: " + ex.getMessage(), ex));
+    }
+
+    private Semaphore acquirePermit() {
+        try {
+            Duration maxWait = properties.getIntrospection().getMaxWait();
+            if (!permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new OAuth2IntrospectionException("Too many token introspections in flight");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new OAuth2IntrospectionException("Interrupted while waiting to introspect token");
+        }
+        return permits;
+    }
+
+    private Introspection toIntrospection(String token, Map<String, Object> claims) {
+        if (!Boolean.TRUE.equals(claims.get(OAuth2TokenIntrospectionClaimNames.ACTIVE))) {
+            return Introspection.INACTIVE;
+        }
+
+        Map<String, Object> attributes = new LinkedHashMap<>(claims);
+        for (String claim : TIMESTAMP_CLAIMS) {
+            if (attributes.get(claim) instanceof Number seconds) {
+                attributes.put(claim, Instant.ofEpochSecond(seconds.longValue()));
+            }
+        }
+
+        // Same claims as the access token, so the JWT authorities mapping applies as is
+        Jwt claimSet = Jwt.withTokenValue(token)
+                .header("alg", "none")
+                .claims(jwtClaims -> jwtClaims.putAll(attributes))
+                .build();
+        Collection<GrantedAuthority> authorities = jwtAuthConverter.convert(claimSet).getAuthorities();
+
+        OAuth2AuthenticatedPrincipal principal = new OAuth2IntrospectionAuthenticatedPrincipal(
+                (String) attributes.get(OAuth2TokenIntrospectionClaimNames.SUB),
+                attributes,
+                authorities
+        );
+        return new Introspection(true, principal, (Instant) attributes.get(OAuth2TokenIntrospectionClaimNames.EXP));
+    }
+
+    /**
+     * Cached outcome of introspecting a token.
+     *
+     * @param active    whether Keycloak reported the token as active
+     * @param principal the token's claims and authorities, for active tokens
+     * @param expiresAt the token's {@code exp}, if any
+     */
+    public record Introspection(boolean active, OAuth2AuthenticatedPrincipal principal, Instant expiresAt) {
+
+        static final Introspection INACTIVE = new Introspection(false, null, null);
+    }
+
+    /**
+     * Expires active results at the token's {@code exp} or after {@code ttl}, whichever comes first, and
+     * inactive results after {@code negativeTtl}.
+     */
+    private record IntrospectionExpiry(Duration ttl, Duration negativeTtl) implements Expiry<String, Introspection> {
+
+        @Override
+        public long expireAfterCreate(String digest, Introspection introspection, long currentTime) {
+            if (!introspection.active()) {
+                return negativeTtl.toNanos();
+            }
+            if (introspection.expiresAt() == null) {
+                return ttl.toNanos();
+            }
+
+            Duration untilExpiry = Duration.between(Instant.now(), introspection.expiresAt());
+            if (untilExpiry.isNegative()) {
+                return 0;
+            }
+            return Math.min(untilExpiry.toNanos(), ttl.toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, Introspection introspection, long currentTime, long currentDuration) {
+            return expireAfterCreate(digest, introspection, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String digest, Introspection introspection, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
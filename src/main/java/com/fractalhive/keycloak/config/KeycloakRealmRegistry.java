@@ -0,0 +1,228 @@
+package com.fractalhive.keycloak.config;
+
+import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+import com.fractalhive.keycloak.exception.KeycloakAuthException;
+import com.fractalhive.keycloak.service.KeycloakEndpoints;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.Objects;
+import java.util.concurrent.CompletionException;
+import java.util.regex.Pattern;
+
+/**
+ * Per-realm token verification for applications accepting tokens of several tenant realms of one Keycloak
+ * server.
+ * <p>
+ * Every realm gets its own {@link RealmContext}: signing key cache, JWT decoder and authorities converter.
+ * Admin API calls, logins and the role catalog stay bound to {@code fractalhive.keycloak.realm}; the
+ * registry only decides which realm's keys verify a bearer token. Only realms listed in
+ * {@code tenants.allowed-realms}
+ * are served. Contexts are created on first use, which loads the realm's signing keys, and kept in a bounded
+ * cache: at most {@code tenants.maximum-realms} realms, each dropped after {@code tenants.idle-timeout}
+ * without use or when it is the least recently used one. Dropping a realm stops its background refreshes.
+ * </p>
+ * <p>
+ * Signing keys are loaded asynchronously, outside the cache's lock, and concurrent first requests for a realm
+ * share one load. A realm whose keys cannot be loaded is rejected for {@code tenants.failure-ttl} without
+ * calling Keycloak again.
+ * </p>
+ * <p>
+ * The configured {@code fractalhive.keycloak.realm} is always available and uses the application-wide beans.
+ * </p>
+ */
+@Slf4j
+public class KeycloakRealmRegistry implements DisposableBean {
+
+    private static final Pattern REALM_NAME = Pattern.compile("[A-Za-z0-9._-]+");
+
+    private final WebClient webClient;
+    private final KeycloakAuthProperties properties;
+    private final JwtAuthConverter defaultJwtAuthConverter;
+    private final RealmContext defaultRealm;
+    private final AsyncCache<String, RealmContext> realms;
+    private final Cache<String, KeycloakAuthException> failedRealms;
+
+    public KeycloakRealmRegistry(
+            WebClient webClient,
+            KeycloakAuthProperties properties,
+            JwtDecoder jwtDecoder,
+            JwtAuthConverter jwtAuthConverter
+    ) {
+        this.webClient = webClient;
+        this.properties = properties;
+        this.defaultJwtAuthConverter = jwtAuthConverter;
+        this.defaultRealm = new RealmContext(properties.getRealm(), null, jwtDecoder, jwtAuthConverter);
+
+        KeycloakAuthProperties.Tenants tenants = properties.getTenants();
+        this.realms = Caffeine.newBuilder()
+                .maximumSize(tenants.getMaximumRealms())
+                .expireAfterAccess(tenants.getIdleTimeout())
+                .removalListener((String realm, RealmContext context, RemovalCause cause) -> {
+                    if (context != null) {
+                        log.debug("Dropping Keycloak realm '{}' ({})", realm, cause);
+                        context.close();
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+        this.failedRealms = Caffeine.newBuilder()
+                .maximumSize(tenants.getMaximumRealms())
+                .expireAfterWrite(tenants.getFailureTtl())
+                .build();
+    }
+
+    /**
+     * Whether {@code realm} is a valid realm name that {@code tenants.allowed-realms} permits.
+     */
+    public boolean isAllowed(String realm) {
+        return realm != null
+                && REALM_NAME.matcher(realm).matches()
+                && !realm.equals(".")
+                && !realm.equals("..")
+                && (realm.equals(properties.getRealm()) || properties.getTenants().isAllowed(realm));
+    }
+
+    /**
+     * Get the context of a realm, creating it on first use.
+     *
+     * @throws KeycloakAuthException if the realm is not allowed or its signing keys cannot be loaded
+     */
+    public RealmContext getRealm(String realm) {
+        if (Objects.equals(realm, properties.getRealm())) {
+            return defaultRealm;
+        }
+        if (!isAllowed(realm)) {
+            throw new KeycloakAuthException("Realm is not served by this application: " + realm);
+        }
+
+        KeycloakAuthException failure = failedRealms.getIfPresent(realm);
+        if (failure != null) {
+            throw new KeycloakAuthException(failure.getMessage(), failure);
+        }
+
+        try {
+            return realms.get(realm, (key, executor) -> createRealm(key).toFuture()).join();
+        } catch (CompletionException ex) {
+            KeycloakAuthException error = ex.getCause() instanceof KeycloakAuthException keycloakError
+                    ? keycloakError
+                    : new KeycloakAuthException("Could not serve realm '%s'".formatted(realm), ex.getCause());
+            failedRealms.put(realm, error);
+            throw error;
+        }
+    }
+
+    /**
+     * Context of {@code fractalhive.keycloak.realm}.
+     */
+    public RealmContext getDefaultRealm() {
+        return defaultRealm;
+    }
+
+    /**
+     * Cache of tenant realm contexts, excluding the default realm.
+     */
+    public Cache<String, RealmContext> getRealmCache() {
+        return realms.synchronous();
+    }
+
+    @Override
+    public void destroy() {
+        realms.synchronous().invalidateAll();
+        realms.synchronous().cleanUp();
+    }
+
+    private Mono<RealmContext> createRealm(String realm) {
+        KeycloakAuthProperties realmProperties = properties.forRealm(realm);
+        KeycloakEndpoints endpoints = new KeycloakEndpoints(realmProperties);
+
+        KeycloakJwkSetCache jwkSetCache = new KeycloakJwkSetCache(
+                webClient, endpoints.certs().toString(), properties.getJwks());
+        return jwkSetCache.refresh()
+                .timeout(properties.getJwks().getWarmupTimeout())
+                .onErrorMap(ex -> new KeycloakAuthException(
+                        "Could not load the signing keys of realm '%s': %s".formatted(realm, ex.getMessage()), ex))
+                .map(jwkSet -> {
+                    jwkSetCache.scheduleRefresh();
+                    return createRealm(realmProperties, jwkSetCache);
+                });
+    }
+
+    private RealmContext createRealm(
+            KeycloakAuthProperties realmProperties,
+            KeycloakJwkSetCache jwkSetCache
+    ) {
+        JwtDecoder jwtDecoder = JwtDecoderConfig.createJwtDecoder(jwkSetCache, realmProperties.getJwtIssuerUri());
+        KeycloakAuthProperties.CacheSpec jwtCache = properties.getCache().getJwt();
+        if (jwtCache.isEnabled()) {
+            jwtDecoder = new CachingJwtDecoder(jwtDecoder, jwtCache.getMaximumSize(), jwtCache.getTtl());
+        }
+
+        // The authorities converter only depends on the client whose roles it reads
+        boolean sameResource = Objects.equals(realmProperties.getClientId(), properties.getClientId())
+                && Objects.equals(realmProperties.getResourceId(), properties.getResourceId());
+        JwtAuthConverter jwtAuthConverter = sameResource
+                ? defaultJwtAuthConverter
+                : new JwtAuthConverter(realmProperties);
+
+        log.debug("Serving Keycloak realm '{}'", realmProperties.getRealm());
+        return new RealmContext(realmProperties.getRealm(), jwkSetCache, jwtDecoder, jwtAuthConverter);
+    }
+
+    /**
+     * Token verification state of one realm.
+     */
+    public static final class RealmContext {
+
+        private final String realm;
+        private final KeycloakJwkSetCache jwkSetCache;
+        private final JwtDecoder jwtDecoder;
+        private final AuthenticationManager authenticationManager;
+
+        private RealmContext(
+                String realm,
+                KeycloakJwkSetCache jwkSetCache,
+                JwtDecoder jwtDecoder,
+                JwtAuthConverter jwtAuthConverter
+        ) {
+            this.realm = realm;
+            this.jwkSetCache = jwkSetCache;
+            this.jwtDecoder = jwtDecoder;
+
+            JwtAuthenticationProvider authenticationProvider = new JwtAuthenticationProvider(jwtDecoder);
+            authenticationProvider.setJwtAuthenticationConverter(jwtAuthConverter);
+            this.authenticationManager = new ProviderManager(authenticationProvider);
+        }
+
+        public String getRealm() {
+            return realm;
+        }
+
+        public JwtDecoder getJwtDecoder() {
+            return jwtDecoder;
+        }
+
+        /**
+         * Authenticates bearer tokens issued by this realm.
+         */
+        public AuthenticationManager getAuthenticationManager() {
+            return authenticationManager;
+        }
+
+        private void close() {
+            if (jwkSetCache != null) {
+                jwkSetCache.stop();
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.fractalhive.keycloak.config;
+
+import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Timeouts, retries, circuit breakers and bulkheads for Keycloak calls.
+ *
+ * @see KeycloakResilienceFilter
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "fractalhive.keycloak.resilience", name = "enabled", matchIfMissing = true)
+public class KeycloakResilienceConfig {
+
+    @Bean
+    public KeycloakResilienceFilter keycloakResilienceFilter(KeycloakAuthProperties properties) {
+        return new KeycloakResilienceFilter(properties.getResilience());
+    }
+}
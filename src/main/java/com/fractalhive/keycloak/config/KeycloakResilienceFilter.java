@@ -0,0 +1,193 @@
+package com.fractalhive.keycloak.config;
+
+import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+import com.fractalhive.keycloak.exception.KeycloakUnavailableException;
+import com.fractalhive.keycloak.service.KeycloakOperation;
+import com.fractalhive.keycloak.service.KeycloakOperation.Traffic;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link ExchangeFilterFunction} that bounds how long and how often the starter waits on Keycloak.
+ * <p>
+ * Every attempt gets the timeout configured for its {@link KeycloakOperation}. Idempotent operations are
+ * retried after a timeout, a connection failure or a {@code 429}, {@code 502}, {@code 503} or {@code 504}
+ * response, with exponential backoff and jitter; other operations, such as login and refresh, are sent once.
+ * </p>
+ * <p>
+ * Each {@link Traffic} class has its own circuit breaker and bulkhead, so a struggling Admin API does not
+ * hold up end-user sign-ins. Calls rejected by an open circuit or a full bulkhead fail immediately with
+ * {@link KeycloakUnavailableException}, as do calls that time out or fail without a response on their last
+ * attempt. Error responses are passed on unchanged, so callers keep handling them as before.
+ * </p>
+ */
+public class KeycloakResilienceFilter implements ExchangeFilterFunction {
+
+    private final KeycloakAuthProperties.Resilience properties;
+    private final Map<Traffic, Lane> lanes = new EnumMap<>(Traffic.class);
+
+    public KeycloakResilienceFilter(KeycloakAuthProperties.Resilience properties) {
+        this.properties = properties;
+        KeycloakAuthProperties.Bulkhead bulkhead = properties.getBulkhead();
+        lanes.put(Traffic.USER, new Lane(properties.getCircuitBreaker(), bulkhead.getUserMaxConcurrentCalls()));
+        lanes.put(Traffic.ADMIN, new Lane(properties.getCircuitBreaker(), bulkhead.getAdminMaxConcurrentCalls()));
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        KeycloakOperation operation = request.attribute(KeycloakOperation.ATTRIBUTE)
+                .filter(KeycloakOperation.class::isInstance)
+                .map(KeycloakOperation.class::cast)
+                .orElse(null);
+
+        // Calls without an operation are treated like an Admin API write
+        Traffic traffic = operation != null ? operation.traffic() : Traffic.ADMIN;
+        boolean idempotent = operation != null && operation.isIdempotent();
+        Duration timeout = properties.getTimeout(operation != null ? operation.tagValue() : "unknown");
+        String description = operation != null ? operation.tagValue() : request.method() + " " + request.url();
+
+        return attempt(request, next, lanes.get(traffic), timeout, idempotent, description, 0);
+    }
+
+    /**
+     * State of the circuit breaker for a traffic class: {@code CLOSED}, {@code OPEN} or {@code HALF_OPEN}.
+     */
+    public String getCircuitBreakerState(Traffic traffic) {
+        return lanes.get(traffic).circuitBreaker.getState().name();
+    }
+
+    /**
+     * Number of calls of a traffic class currently waiting on Keycloak.
+     */
+    public int getActiveCalls(Traffic traffic) {
+        return lanes.get(traffic).activeCalls.get();
+    }
+
+    private Mono<ClientResponse> attempt(
+            ClientRequest request,
+            ExchangeFunction next,
+            Lane lane,
+            Duration timeout,
+            boolean idempotent,
+            String description,
+            int attempt
+    ) {
+        KeycloakAuthProperties.Retry retry = properties.getRetry();
+        boolean retryable = idempotent && attempt < retry.getMaxRetries();
+
+        return exchange(request, next, lane, timeout, description)
+                .flatMap(response -> retryable && isTransient(response.statusCode().value())
+                        ? response.releaseBody()
+                        .then(Mono.delay(backoff(attempt)))
+                        .then(attempt(request, next, lane, timeout, idempotent, description, attempt + 1))
+                        : Mono.just(response))
+                .onErrorResume(ex -> retryable && isTransient(ex),
+                        ex -> Mono.delay(backoff(attempt))
+                                .then(attempt(request, next, lane, timeout, idempotent, description, attempt + 1)))
+                .onErrorMap(ex -> ex instanceof TimeoutException,
+                        ex -> new KeycloakUnavailableException(
+                                "Keycloak did not answer " + description + " within " + timeout, ex))
+                .onErrorMap(WebClientRequestException.class,
+                        ex -> new KeycloakUnavailableException(
+                                "Keycloak could not be reached for " + description + ": " + ex.getMessage(), ex));
+    }
+
+    private Mono<ClientResponse> exchange(
+            ClientRequest request,
+            ExchangeFunction next,
+            Lane lane,
+            Duration timeout,
+            String description
+    ) {
+        return Mono.defer(() -> {
+            if (!lane.tryAcquireSlot()) {
+                return Mono.error(new KeycloakUnavailableException(
+                        "Too many concurrent Keycloak calls, rejected " + description));
+            }
+            if (!lane.circuitBreaker.tryAcquire()) {
+                lane.releaseSlot();
+                return Mono.error(new KeycloakUnavailableException(
+                        "Keycloak circuit breaker is open, rejected " + description));
+            }
+
+            AtomicBoolean recorded = new AtomicBoolean();
+            return next.exchange(request)
+                    .timeout(timeout)
+                    .doOnNext(response -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            int status = response.statusCode().value();
+                            if (status >= 500 || status == 429) {
+                                lane.circuitBreaker.onFailure();
+                            } else {
+                                lane.circuitBreaker.onSuccess();
+                            }
+                        }
+                    })
+                    .doOnError(ex -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            lane.circuitBreaker.onFailure();
+                        }
+                    })
+                    .doFinally(signal -> {
+                        if (signal == SignalType.CANCEL && recorded.compareAndSet(false, true)) {
+                            lane.circuitBreaker.onIgnored();
+                        }
+                        lane.releaseSlot();
+                    });
+        });
+    }
+
+    private Duration backoff(int attempt) {
+        KeycloakAuthProperties.Retry retry = properties.getRetry();
+        long initial = retry.getInitialBackoff().toMillis();
+        long max = retry.getMaxBackoff().toMillis();
+        long delay = Math.min(max, initial << Math.min(attempt, 30));
+        double jitter = Math.clamp(retry.getJitter(), 0.0, 1.0);
+        return Duration.ofMillis((long) (delay * (1 - jitter * ThreadLocalRandom.current().nextDouble())));
+    }
+
+    private static boolean isTransient(Throwable ex) {
+        return ex instanceof TimeoutException || ex instanceof WebClientRequestException;
+    }
+
+    private static boolean isTransient(int status) {
+        return status == 429 || status == 502 || status == 503 || status == 504;
+    }
+
+    private static final class Lane {
+
+        private final KeycloakCircuitBreaker circuitBreaker;
+        private final AtomicInteger activeCalls = new AtomicInteger();
+        private final int maxConcurrentCalls;
+
+        private Lane(KeycloakAuthProperties.CircuitBreaker circuitBreaker, int maxConcurrentCalls) {
+            this.circuitBreaker = new KeycloakCircuitBreaker(circuitBreaker);
+            this.maxConcurrentCalls = maxConcurrentCalls;
+        }
+
+        private boolean tryAcquireSlot() {
+            if (activeCalls.incrementAndGet() > maxConcurrentCalls) {
+                activeCalls.decrementAndGet();
+                return false;
+            }
+            return true;
+        }
+
+        private void releaseSlot() {
+            activeCalls.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.fractalhive.keycloak.config;
+
+import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+import com.fractalhive.keycloak.exception.KeycloakAuthException;
+import com.nimbusds.jwt.JWTParser;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationManagerResolver;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.util.StringUtils;
+
+import java.text.ParseException;
+
+/**
+ * Authenticates every bearer token against the realm its request belongs to.
+ * <p>
+ * The realm is taken from the token's {@code iss} claim, a request header or the subdomain, as configured
+ * by {@code tenants.resolution}, and the token is then verified by that realm's decoder from
+ * {@link KeycloakRealmRegistry}. Reading the issuer does not trust the token: the realm's decoder verifies
+ * the signature against the realm's own keys and checks that the issuer matches the realm. Requests
+ * without a realm, and tokens whose issuer is not a realm of {@code server-url}, use
+ * {@code fractalhive.keycloak.realm}.
+ * </p>
+ */
+public class KeycloakTenantAuthenticationManagerResolver implements AuthenticationManagerResolver<HttpServletRequest> {
+
+    private final KeycloakRealmRegistry realmRegistry;
+    private final KeycloakAuthProperties properties;
+
+    public KeycloakTenantAuthenticationManagerResolver(
+            KeycloakRealmRegistry realmRegistry,
+            KeycloakAuthProperties properties
+    ) {
+        this.realmRegistry = realmRegistry;
+        this.properties = properties;
+    }
+
+    @Override
+    public AuthenticationManager resolve(HttpServletRequest request) {
+        return authentication -> {
+            String realm = resolveRealm(request, authentication);
+
+            KeycloakRealmRegistry.RealmContext context;
+            try {
+                context = realmRegistry.getRealm(realm);
+            } catch (KeycloakAuthException ex) {
+                throw new InvalidBearerTokenException("Unknown realm: " + realm, ex);
+            }
+
+            return context.getAuthenticationManager().authenticate(authentication);
+        };
+    }
+
+    private String resolveRealm(HttpServletRequest request, Authentication authentication) {
+        String realm = switch (properties.getTenants().getResolution()) {
+            case ISSUER -> realmFromIssuer(authentication);
+            case HEADER -> request.getHeader(properties.getTenants().getHeaderName());
+            case SUBDOMAIN -> realmFromHost(request.getServerName());
+        };
+
+        return StringUtils.hasText(realm) ? realm : properties.getRealm();
+    }
+
+    private String realmFromIssuer(Authentication authentication) {
+        if (!(authentication instanceof BearerTokenAuthenticationToken bearer)) {
+            return null;
+        }
+
+        String issuer;
+        try {
+            issuer = JWTParser.parse(bearer.getToken()).getJWTClaimsSet().getIssuer();
+        } catch (ParseException ex) {
+            throw new InvalidBearerTokenException("Malformed token", ex);
+        }
+
+        // Other issuers are left to the default realm's decoder, which accepts its configured issuer only
+        String realmsPrefix = properties.getServerUrl() + "/realms/";
+        return issuer != null && issuer.startsWith(realmsPrefix)
+                ? issuer.substring(realmsPrefix.length())
+                : null;
+    }
+
+    private static String realmFromHost(String host) {
+        int dot = host != null ? host.indexOf('.') : -1;
+        return dot > 0 ? host.substring(0, dot) : null;
+    }
+}
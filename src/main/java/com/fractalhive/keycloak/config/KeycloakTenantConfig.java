@@ -0,0 +1,37 @@
+package com.fractalhive.keycloak.config;
+
+import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Multi-realm token verification, enabled by {@code fractalhive.keycloak.tenants.enabled=true}.
+ *
+ * @see KeycloakRealmRegistry
+ * @see KeycloakTenantAuthenticationManagerResolver
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "fractalhive.keycloak.tenants", name = "enabled")
+public class KeycloakTenantConfig {
+
+    @Bean
+    public KeycloakRealmRegistry keycloakRealmRegistry(
+            WebClient keycloakWebClient,
+            KeycloakAuthProperties properties,
+            JwtDecoder jwtDecoder,
+            JwtAuthConverter jwtAuthConverter
+    ) {
+        return new KeycloakRealmRegistry(keycloakWebClient, properties, jwtDecoder, jwtAuthConverter);
+    }
+
+    @Bean
+    public KeycloakTenantAuthenticationManagerResolver keycloakTenantAuthenticationManagerResolver(
+            KeycloakRealmRegistry keycloakRealmRegistry,
+            KeycloakAuthProperties properties
+    ) {
+        return new KeycloakTenantAuthenticationManagerResolver(keycloakRealmRegistry, properties);
+    }
+}
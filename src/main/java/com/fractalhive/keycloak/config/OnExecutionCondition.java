@@ -0,0 +1,32 @@
+package com.fractalhive.keycloak.config;
+
+import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+import java.util.Map;
+
+/**
+ * Condition behind {@link ConditionalOnExecution}.
+ */
+class OnExecutionCondition extends SpringBootCondition {
+
+    private static final String PROPERTY = "fractalhive.keycloak.execution";
+
+    @Override
+    public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+        Map<String, Object> attributes = metadata.getAnnotationAttributes(ConditionalOnExecution.class.getName());
+        KeycloakAuthProperties.Execution required = (KeycloakAuthProperties.Execution) attributes.get("value");
+
+        KeycloakAuthProperties.Execution execution = Binder.get(context.getEnvironment())
+                .bind(PROPERTY, KeycloakAuthProperties.Execution.class)
+                .orElse(KeycloakAuthProperties.Execution.PLATFORM);
+
+        return execution == required
+                ? ConditionOutcome.match("'%s' is %s".formatted(PROPERTY, execution))
+                : ConditionOutcome.noMatch("'%s' is %s, not %s".formatted(PROPERTY, execution, required));
+    }
+}
@@ -2,6 +2,7 @@ package com.fractalhive.keycloak.config;
 
 import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -30,8 +31,10 @@ import static org.springframework.security.config.http.SessionCreationPolicy.STA
 public class SecurityConfig {
 
     private final JwtAuthConverter jwtAuthConverter;
-    private final JwtCookieAuthenticationFilter jwtCookieAuthenticationFilter;
+    private final CookieBearerTokenResolver cookieBearerTokenResolver;
     private final KeycloakAuthProperties properties;
+    private final ObjectProvider<KeycloakTenantAuthenticationManagerResolver> tenantAuthenticationManagerResolver;
+    private final ObjectProvider<KeycloakBearerTokenAuthenticationManagerResolver> bearerTokenAuthenticationManagerResolver;
 
     @Bean
     @ConditionalOnMissingBean
@@ -42,16 +45,33 @@ public class SecurityConfig {
                 .sessionManagement(session ->
                         session.sessionCreationPolicy(STATELESS)
                 )
-                .addFilterBefore(jwtCookieAuthenticationFilter, BearerTokenAuthenticationFilter.class)
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(properties.getPublicEndpoints()).permitAll()
                         .anyRequest().authenticated()
                 )
-                .oauth2ResourceServer(oauth2 ->
+                .oauth2ResourceServer(oauth2 -> {
+                    oauth2.bearerTokenResolver(cookieBearerTokenResolver);
+
+                    KeycloakBearerTokenAuthenticationManagerResolver bearerTokenResolver =
+                            bearerTokenAuthenticationManagerResolver.getIfAvailable();
+                    KeycloakTenantAuthenticationManagerResolver tenantResolver =
+                            tenantAuthenticationManagerResolver.getIfAvailable();
+                    if (bearerTokenResolver != null) {
+                        // JWTs verified locally, opaque tokens introspected
+                        oauth2.authenticationManagerResolver(bearerTokenResolver);
+                    } else if (tenantResolver != null) {
+                        // Each realm verifies its own tokens
+                        oauth2.authenticationManagerResolver(tenantResolver);
+                    } else {
                         oauth2.jwt(jwt ->
                                 jwt.jwtAuthenticationConverter(jwtAuthConverter)
-                        )
-                );
+                        );
+                    }
+                });
+
+        if (properties.getCookie().isLegacyAuthorizationHeader()) {
+            http.addFilterBefore(new JwtCookieAuthenticationFilter(), BearerTokenAuthenticationFilter.class);
+        }
 
         return http.build();
     }
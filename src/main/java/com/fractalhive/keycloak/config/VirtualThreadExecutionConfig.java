@@ -0,0 +1,61 @@
+package com.fractalhive.keycloak.config;
+
+import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.JdkClientHttpConnector;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.Executors;
+
+/**
+ * Virtual-thread execution mode, enabled with {@code fractalhive.keycloak.execution=virtual-threads}.
+ * <p>
+ * Tomcat dispatches requests (and therefore controller and blocking service code) on virtual threads,
+ * and Keycloak calls use a JDK {@link HttpClient} whose callbacks also run on virtual threads. Waiting in
+ * {@code block()} parks the virtual thread instead of holding a carrier, so concurrent logins are no longer
+ * bounded by Tomcat's worker pool.
+ * </p>
+ */
+@Configuration
+@ConditionalOnExecution(KeycloakAuthProperties.Execution.VIRTUAL_THREADS)
+public class VirtualThreadExecutionConfig {
+
+    /**
+     * Transport for Keycloak calls backed by the JDK HttpClient, used by {@link WebClientConfig} only.
+     * <p>
+     * Honors the {@code fractalhive.keycloak.http.*} timeouts and HTTP/2 setting; the JDK client manages
+     * its own connection pool.
+     * </p>
+     */
+    @Bean
+    public KeycloakHttpConnector keycloakHttpConnector(KeycloakAuthProperties properties) {
+        KeycloakAuthProperties.Http http = properties.getHttp();
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .executor(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("keycloak-http-", 0).factory()))
+                .connectTimeout(http.getConnectTimeout())
+                .version(http.isHttp2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .build();
+
+        JdkClientHttpConnector connector = new JdkClientHttpConnector(httpClient);
+        connector.setReadTimeout(http.getResponseTimeout());
+        return new KeycloakHttpConnector(connector, httpClient::shutdownNow);
+    }
+
+    /**
+     * Runs Tomcat request processing on virtual threads.
+     */
+    @Configuration
+    @ConditionalOnClass(name = "org.apache.catalina.startup.Tomcat")
+    static class TomcatVirtualThreadsConfig {
+
+        @Bean
+        public TomcatProtocolHandlerCustomizer<?> keycloakVirtualThreadsProtocolHandlerCustomizer() {
+            return protocolHandler -> protocolHandler.setExecutor(new VirtualThreadExecutor("tomcat-handler-"));
+        }
+    }
+}
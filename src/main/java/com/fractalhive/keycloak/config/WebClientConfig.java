@@ -1,7 +1,16 @@
 package com.fractalhive.keycloak.config;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
 
 /**
@@ -10,8 +19,45 @@ import org.springframework.web.reactive.function.client.WebClient;
 @Configuration
 public class WebClientConfig {
 
+    /**
+     * WebClient bean for Keycloak API calls.
+     * Can be overridden by consuming applications if needed.
+     * <p>
+     * Built from a private builder, on the {@link KeycloakHttpConnector} transport when one is configured,
+     * so neither Keycloak's connection pool, codecs and timeouts nor its filters leak into the application's
+     * own {@code WebClient.Builder}.
+     * </p>
+     * <p>
+     * JSON is read and written with a dedicated {@link ObjectMapper} that ignores fields Keycloak adds over
+     * time and leaves {@code null} fields out of request bodies. It is not exposed as a bean, so the
+     * application's own {@code ObjectMapper} is unaffected. JSON arrays read with {@code bodyToFlux} are
+     * decoded element by element as the response streams in.
+     * </p>
+     * <p>
+     * Calls are timed when the Keycloak metrics filter is available (Micrometer on the classpath).
+     * The resilience filter wraps the metrics filter, so every attempt of a retried call is timed.
+     * </p>
+     */
     @Bean
-    public WebClient.Builder webClientBuilder() {
-        return WebClient.builder();
+    @ConditionalOnMissingBean
+    public WebClient keycloakWebClient(
+            ObjectProvider<KeycloakHttpConnector> httpConnector,
+            ObjectProvider<KeycloakResilienceFilter> resilienceFilter,
+            @Qualifier("keycloakMetricsFilter") ObjectProvider<ExchangeFilterFunction> metricsFilter
+    ) {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .failOnUnknownProperties(false)
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .build();
+
+        WebClient.Builder builder = WebClient.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                });
+        httpConnector.ifAvailable(connector -> builder.clientConnector(connector.getConnector()));
+        resilienceFilter.ifAvailable(builder::filter);
+        metricsFilter.ifAvailable(builder::filter);
+        return builder.build();
     }
 }
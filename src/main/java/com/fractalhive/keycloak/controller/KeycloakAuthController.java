@@ -1,5 +1,7 @@
 package com.fractalhive.keycloak.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
 import com.fractalhive.keycloak.config.JwtCookieAuthenticationFilter;
 import com.fractalhive.keycloak.dto.*;
@@ -8,24 +10,29 @@ import com.fractalhive.keycloak.service.KeycloakAuthService;
 import com.fractalhive.keycloak.service.KeycloakPasswordService;
 import com.fractalhive.keycloak.service.KeycloakRoleService;
 import com.fractalhive.keycloak.service.KeycloakUserService;
+import com.fractalhive.keycloak.service.ReactiveKeycloakRoleService;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * REST controller for Keycloak authentication and authorization endpoints.
@@ -39,8 +46,10 @@ public class KeycloakAuthController {
     private final KeycloakAuthService authService;
     private final KeycloakUserService userService;
     private final KeycloakRoleService roleService;
+    private final ReactiveKeycloakRoleService reactiveRoleService;
     private final KeycloakPasswordService passwordService;
     private final KeycloakAuthProperties properties;
+    private final ObjectMapper objectMapper;
 
     // ========== Authentication Endpoints ==========
 
@@ -197,18 +206,53 @@ public class KeycloakAuthController {
 
     @Operation(
             summary = "Get all roles",
-            description = "Retrieves all realm roles from Keycloak."
+            description = "Retrieves all realm roles from Keycloak. Roles are paged from Keycloak and streamed as a JSON array, "
+                    + "or as newline-delimited JSON when requested with 'Accept: application/x-ndjson'."
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Roles retrieved successfully")
     })
     @SecurityRequirement(name = "Bearer Authentication")
     @SecurityRequirement(name = "Cookie Authentication")
-    @GetMapping("/roles")
-    public ResponseEntity<List<RoleResponse>> getAllRoles() {
-        // This would need to be implemented in KeycloakRoleService
-        // For now, returning empty list
-        return ResponseEntity.ok(List.of());
+    @GetMapping(value = "/roles", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getAllRoles(
+            @Parameter(description = "Only return roles whose name contains this value")
+            @RequestParam(required = false) String search,
+            @Parameter(description = "Omit role attributes and composites")
+            @RequestParam(defaultValue = "true") boolean briefRepresentation
+    ) {
+        StreamingResponseBody body = outputStream -> {
+            try (Stream<RoleResponse> roles = roleService.listRoles(search, briefRepresentation);
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                for (RoleResponse role : (Iterable<RoleResponse>) roles::iterator) {
+                    generator.writeObject(role);
+                }
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    @Operation(
+            summary = "Stream all roles",
+            description = "Retrieves all realm roles from Keycloak as newline-delimited JSON, one role per line."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Roles retrieved successfully")
+    })
+    @SecurityRequirement(name = "Bearer Authentication")
+    @SecurityRequirement(name = "Cookie Authentication")
+    @GetMapping(value = "/roles", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<RoleResponse> streamAllRoles(
+            @Parameter(description = "Only return roles whose name contains this value")
+            @RequestParam(required = false) String search,
+            @Parameter(description = "Omit role attributes and composites")
+            @RequestParam(defaultValue = "true") boolean briefRepresentation
+    ) {
+        return reactiveRoleService.listRoles(search, briefRepresentation);
     }
 
     @Operation(
@@ -368,12 +412,35 @@ public class KeycloakAuthController {
             @Parameter(description = "Whether the role is a realm role (default: true)")
             @RequestParam(defaultValue = "true") boolean isRealmRole
     ) {
-        for (String roleName : request.roleNames()) {
-            roleService.assignRoleToUser(userId, roleName, isRealmRole);
-        }
+        roleService.assignRolesToUser(userId, request.roleNames(), isRealmRole);
         return ResponseEntity.ok().build();
     }
 
+    @Operation(
+            summary = "Assign roles to many users",
+            description = "Assigns the same roles to every listed user, with one role-mapping call per user. "
+                    + "Returns the outcome for each user."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Assignment attempted for every user; see the per-user results"),
+            @ApiResponse(responseCode = "404", description = "Role not found")
+    })
+    @SecurityRequirement(name = "Bearer Authentication")
+    @SecurityRequirement(name = "Cookie Authentication")
+    @PostMapping("/roles/assignments")
+    public ResponseEntity<BulkRoleAssignmentResponse> assignRolesToUsers(
+            @Valid @RequestBody BulkRoleAssignmentRequest request,
+            @Parameter(description = "Whether the roles are realm roles (default: true)")
+            @RequestParam(defaultValue = "true") boolean isRealmRole
+    ) {
+        BulkRoleAssignmentResponse response = roleService.assignRolesToUsers(
+                request.userIds(),
+                request.roleNames(),
+                isRealmRole
+        );
+        return ResponseEntity.ok(response);
+    }
+
     @Operation(
             summary = "Remove role from user",
             description = "Removes a role from a user."
@@ -416,6 +483,26 @@ public class KeycloakAuthController {
         return ResponseEntity.ok(roles);
     }
 
+    @Operation(
+            summary = "Get effective user roles",
+            description = "Retrieves the realm and client roles a user effectively holds, including roles granted "
+                    + "through composite roles, together with the user's direct role mappings."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Effective roles retrieved successfully"),
+            @ApiResponse(responseCode = "404", description = "User not found")
+    })
+    @SecurityRequirement(name = "Bearer Authentication")
+    @SecurityRequirement(name = "Cookie Authentication")
+    @GetMapping("/users/{userId}/roles/effective")
+    public ResponseEntity<EffectiveRolesResponse> getEffectiveUserRoles(
+            @Parameter(description = "User ID", required = true)
+            @PathVariable String userId
+    ) {
+        EffectiveRolesResponse roles = roleService.getEffectiveRoles(userId);
+        return ResponseEntity.ok(roles);
+    }
+
     // ========== Helper Methods ==========
 
     private void setAuthCookies(HttpServletResponse response, LoginResponse loginResponse) {
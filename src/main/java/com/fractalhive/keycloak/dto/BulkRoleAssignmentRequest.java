@@ -0,0 +1,18 @@
+package com.fractalhive.keycloak.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+/**
+ * Request DTO for assigning the same roles to many users.
+ */
+public record BulkRoleAssignmentRequest(
+        @NotEmpty(message = "At least one user ID is required")
+        List<@NotBlank(message = "User ID cannot be blank") String> userIds,
+
+        @NotEmpty(message = "At least one role name is required")
+        List<@NotBlank(message = "Role name cannot be blank") String> roleNames
+) {
+}
@@ -0,0 +1,36 @@
+package com.fractalhive.keycloak.dto;
+
+import java.util.List;
+
+/**
+ * Response DTO for a bulk role assignment, with one result per user.
+ */
+public record BulkRoleAssignmentResponse(
+        int succeeded,
+        int failed,
+        List<UserResult> results
+) {
+
+    public static BulkRoleAssignmentResponse of(List<UserResult> results) {
+        int succeeded = (int) results.stream().filter(UserResult::success).count();
+        return new BulkRoleAssignmentResponse(succeeded, results.size() - succeeded, results);
+    }
+
+    /**
+     * Outcome of the role assignment for a single user.
+     */
+    public record UserResult(
+            String userId,
+            boolean success,
+            String error
+    ) {
+
+        public static UserResult succeeded(String userId) {
+            return new UserResult(userId, true, null);
+        }
+
+        public static UserResult failed(String userId, String error) {
+            return new UserResult(userId, false, error);
+        }
+    }
+}
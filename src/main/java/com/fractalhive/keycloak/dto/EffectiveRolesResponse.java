@@ -0,0 +1,22 @@
+package com.fractalhive.keycloak.dto;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Response DTO for the roles a user effectively holds.
+ *
+ * @param userId            user ID
+ * @param realmRoles        realm roles held directly or through composite roles and defaults
+ * @param clientRoles       roles of the configured client held directly or through composite roles
+ * @param directRealmRoles  realm roles mapped to the user directly
+ * @param directClientRoles client roles mapped to the user directly, keyed by client ID
+ */
+public record EffectiveRolesResponse(
+        String userId,
+        Set<String> realmRoles,
+        Set<String> clientRoles,
+        Set<String> directRealmRoles,
+        Map<String, Set<String>> directClientRoles
+) {
+}
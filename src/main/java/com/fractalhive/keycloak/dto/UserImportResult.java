@@ -0,0 +1,60 @@
+package com.fractalhive.keycloak.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Outcome of importing a single user.
+ */
+public record UserImportResult(
+        String email,
+        String userId,
+        Status status,
+        String error
+) {
+
+    public static UserImportResult created(String email, String userId) {
+        return new UserImportResult(email, userId, Status.CREATED, null);
+    }
+
+    public static UserImportResult existing(String email, String userId) {
+        return new UserImportResult(email, userId, Status.EXISTING, null);
+    }
+
+    public static UserImportResult skipped(String email) {
+        return new UserImportResult(email, null, Status.SKIPPED, null);
+    }
+
+    public static UserImportResult failed(String email, String userId, String error) {
+        return new UserImportResult(email, userId, Status.FAILED, error);
+    }
+
+    /**
+     * Whether the user no longer needs to be imported.
+     */
+    @JsonIgnore
+    public boolean isCompleted() {
+        return status == Status.CREATED || status == Status.EXISTING;
+    }
+
+    public enum Status {
+        /**
+         * The user was created (and given the requested roles).
+         */
+        CREATED,
+
+        /**
+         * The user already existed in Keycloak; the requested roles were applied to it.
+         */
+        EXISTING,
+
+        /**
+         * The user was already completed by an earlier run and was not sent to Keycloak.
+         */
+        SKIPPED,
+
+        /**
+         * Creating the user or applying its roles failed; a resumed import tries again.
+         */
+        FAILED
+    }
+}
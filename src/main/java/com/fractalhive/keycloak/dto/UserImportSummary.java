@@ -0,0 +1,26 @@
+package com.fractalhive.keycloak.dto;
+
+/**
+ * Totals of a user import run.
+ */
+public record UserImportSummary(
+        long created,
+        long existing,
+        long skipped,
+        long failed
+) {
+
+    public static final UserImportSummary EMPTY = new UserImportSummary(0, 0, 0, 0);
+
+    /**
+     * Add a single result to the totals.
+     */
+    public UserImportSummary add(UserImportResult result) {
+        return switch (result.status()) {
+            case CREATED -> new UserImportSummary(created + 1, existing, skipped, failed);
+            case EXISTING -> new UserImportSummary(created, existing + 1, skipped, failed);
+            case SKIPPED -> new UserImportSummary(created, existing, skipped + 1, failed);
+            case FAILED -> new UserImportSummary(created, existing, skipped, failed + 1);
+        };
+    }
+}
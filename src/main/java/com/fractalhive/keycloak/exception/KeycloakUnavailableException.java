@@ -0,0 +1,23 @@
+package com.fractalhive.keycloak.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Keycloak could not be reached or is degraded: the call timed out, failed without a response, or was
+ * rejected by an open circuit breaker or a full bulkhead.
+ * <p>
+ * Answered with {@code 503 Service Unavailable} by Spring MVC.
+ * </p>
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class KeycloakUnavailableException extends KeycloakAuthException {
+
+    public KeycloakUnavailableException(String message) {
+        super(message);
+    }
+
+    public KeycloakUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
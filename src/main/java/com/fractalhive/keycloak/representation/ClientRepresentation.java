@@ -0,0 +1,13 @@
+package com.fractalhive.keycloak.representation;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Client as returned by {@code GET /clients}.
+ *
+ * @param id       internal id (UUID) used in Admin API paths
+ * @param clientId the OAuth client id
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ClientRepresentation(String id, String clientId) {
+}
@@ -0,0 +1,30 @@
+package com.fractalhive.keycloak.representation;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Direct role mappings of a user, from {@code /users/{id}/role-mappings}.
+ *
+ * @param realmMappings  realm roles mapped to the user
+ * @param clientMappings client roles mapped to the user, keyed by client id
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record MappingsRepresentation(
+        List<RoleRepresentation> realmMappings,
+        Map<String, ClientMappings> clientMappings
+) {
+
+    /**
+     * Client roles mapped to the user for one client.
+     *
+     * @param id       internal id of the client
+     * @param client   client id
+     * @param mappings the mapped roles
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record ClientMappings(String id, String client, List<RoleRepresentation> mappings) {
+    }
+}
@@ -0,0 +1,66 @@
+package com.fractalhive.keycloak.representation;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keycloak realm or client role, as read from and sent to the Admin API.
+ * <p>
+ * Brief representations and role mapping lists carry no {@code composites}. {@code null} fields are left
+ * out of request bodies, so {@link #reference(String, String)} sends only the id and name, as the role
+ * mapping and composite endpoints expect.
+ * </p>
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RoleRepresentation(
+        String id,
+        String name,
+        String description,
+        Boolean composite,
+        Composites composites
+) {
+
+    /**
+     * A role to create or update.
+     */
+    public static RoleRepresentation of(String name, String description) {
+        return new RoleRepresentation(null, name, description != null ? description : "", null, null);
+    }
+
+    /**
+     * An existing role, to add to role mappings or composites.
+     */
+    public static RoleRepresentation reference(String id, String name) {
+        return new RoleRepresentation(id, name, null, null, null);
+    }
+
+    /**
+     * Names of the roles this composite role contains: realm roles first, then client roles.
+     */
+    public List<String> compositeNames() {
+        if (composites == null) {
+            return List.of();
+        }
+
+        List<String> names = new ArrayList<>();
+        if (composites.realm() != null) {
+            names.addAll(composites.realm());
+        }
+        if (composites.client() != null) {
+            composites.client().values().forEach(names::addAll);
+        }
+        return names;
+    }
+
+    /**
+     * Roles contained in a composite role: realm role names, and role names per client id.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Composites(List<String> realm, Map<String, List<String>> client) {
+    }
+}
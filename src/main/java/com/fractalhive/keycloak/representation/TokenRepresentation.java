@@ -0,0 +1,17 @@
+package com.fractalhive.keycloak.representation;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Token endpoint response, for the password, refresh token and client credentials grants.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record TokenRepresentation(
+        @JsonProperty("access_token") String accessToken,
+        @JsonProperty("expires_in") Integer expiresIn,
+        @JsonProperty("refresh_token") String refreshToken,
+        @JsonProperty("refresh_expires_in") Integer refreshExpiresIn,
+        @JsonProperty("token_type") String tokenType
+) {
+}
@@ -0,0 +1,57 @@
+package com.fractalhive.keycloak.representation;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Keycloak user, as read from and sent to the Admin API {@code /users} endpoints.
+ * <p>
+ * Only the fields the starter uses are mapped; {@code null} fields are left out of request bodies.
+ * </p>
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UserRepresentation(
+        String id,
+        String username,
+        String email,
+        String firstName,
+        String lastName,
+        Boolean enabled,
+        Boolean emailVerified,
+        List<Credential> credentials
+) {
+
+    /**
+     * A new, enabled user with an unverified email as username and a permanent password.
+     */
+    public static UserRepresentation newUser(String email, String firstName, String lastName, String password) {
+        return new UserRepresentation(
+                null,
+                email,
+                email,
+                firstName,
+                lastName,
+                true,
+                false,
+                List.of(Credential.password(password))
+        );
+    }
+
+    /**
+     * User credential; the starter only sets passwords.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Credential(String type, String value, Boolean temporary) {
+
+        /**
+         * A permanent password, which the user is not asked to change on next login.
+         */
+        public static Credential password(String value) {
+            return new Credential("password", value, false);
+        }
+    }
+}
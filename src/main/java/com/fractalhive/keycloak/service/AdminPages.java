@@ -0,0 +1,47 @@
+package com.fractalhive.keycloak.service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Paging over Keycloak Admin API list endpoints ({@code ?first=&max=}).
+ */
+final class AdminPages {
+
+    private AdminPages() {
+    }
+
+    /**
+     * Fetch the items of every page, one page at a time.
+     * <p>
+     * The next page is requested once the previous one has arrived, and paging stops at the first page
+     * holding fewer than {@code pageSize} items, so at most one page is held in memory per request.
+     * </p>
+     */
+    static <T> Flux<T> fetchAll(int pageSize, PageFetcher<T> pageFetcher) {
+        return fetchPage(pageFetcher, 0, pageSize)
+                .expand(page -> page.items().size() < pageSize
+                        ? Mono.empty()
+                        : fetchPage(pageFetcher, page.first() + pageSize, pageSize))
+                .flatMapIterable(Page::items);
+    }
+
+    private static <T> Mono<Page<T>> fetchPage(PageFetcher<T> pageFetcher, int first, int max) {
+        return pageFetcher.fetch(first, max)
+                .collectList()
+                .map(items -> new Page<>(first, items));
+    }
+
+    /**
+     * Fetches the items of a single page.
+     */
+    @FunctionalInterface
+    interface PageFetcher<T> {
+        Flux<T> fetch(int first, int max);
+    }
+
+    private record Page<T>(int first, List<T> items) {
+    }
+}
@@ -0,0 +1,224 @@
+package com.fractalhive.keycloak.service;
+
+import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+import com.fractalhive.keycloak.exception.KeycloakAuthException;
+import com.fractalhive.keycloak.representation.TokenRepresentation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Manages the admin access token used for Keycloak admin API calls.
+ * <p>
+ * Concurrent callers share a single in-flight {@code client_credentials} request. Once a token has
+ * been obtained it is refreshed in the background after {@code admin.token-refresh-ratio} of its
+ * lifetime, and callers keep receiving the current token while that refresh runs
+ * (stale-while-revalidate). Callers only wait for Keycloak when no valid token is available at all.
+ * </p>
+ * <p>
+ * A failed refresh is retried in the background with exponential backoff, from one second up to one
+ * minute, until a token is obtained again.
+ * </p>
+ */
+@Slf4j
+@Service
+public class KeycloakAdminTokenManager implements DisposableBean {
+
+    private static final Duration MIN_REFRESH_DELAY = Duration.ofSeconds(1);
+    private static final Duration MAX_RETRY_DELAY = Duration.ofMinutes(1);
+
+    /**
+     * Largest share of a token's lifetime {@code admin.token-expiry-skew} may take, so short-lived tokens
+     * are still usable for most of their lifetime.
+     */
+    private static final double MAX_SKEW_FRACTION = 0.25;
+
+    private final WebClient webClient;
+    private final KeycloakAuthProperties properties;
+    private final KeycloakEndpoints endpoints;
+
+    private final Object lock = new Object();
+
+    private volatile AdminToken current;
+    private Mono<AdminToken> inFlight;
+    private Disposable scheduledRefresh;
+    private int failedRefreshes;
+    private boolean destroyed;
+
+    public KeycloakAdminTokenManager(WebClient webClient, KeycloakAuthProperties properties, KeycloakEndpoints endpoints) {
+        this.webClient = webClient;
+        this.properties = properties;
+        this.endpoints = endpoints;
+    }
+
+    /**
+     * Get a valid admin access token.
+     * <p>
+     * Completes immediately when a valid token is cached. Otherwise all concurrent callers
+     * subscribe to the same token request.
+     * </p>
+     */
+    public Mono<String> getAccessToken() {
+        AdminToken token = current;
+        Instant now = Instant.now();
+
+        if (token != null && now.isBefore(token.expiresAt())) {
+            if (!now.isBefore(token.refreshAt())) {
+                refreshInBackground();
+            }
+            return Mono.just(token.value());
+        }
+
+        return fetch().map(AdminToken::value);
+    }
+
+    /**
+     * Remaining lifetime of the cached admin token, or {@link Duration#ZERO} if none is cached.
+     */
+    public Duration getRemainingLifetime() {
+        AdminToken token = current;
+        if (token == null) {
+            return Duration.ZERO;
+        }
+        Duration remaining = Duration.between(Instant.now(), token.expiresAt());
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    @Override
+    public void destroy() {
+        synchronized (lock) {
+            destroyed = true;
+            if (scheduledRefresh != null) {
+                scheduledRefresh.dispose();
+                scheduledRefresh = null;
+            }
+        }
+    }
+
+    private void refreshInBackground() {
+        fetch().subscribe(
+                token -> {
+                },
+                ex -> log.warn("Background refresh of the Keycloak admin access token failed: {}", ex.getMessage())
+        );
+    }
+
+    private Mono<AdminToken> fetch() {
+        synchronized (lock) {
+            if (inFlight == null) {
+                inFlight = requestToken()
+                        .doOnNext(this::onTokenObtained)
+                        .doOnError(ex -> onRefreshFailed())
+                        .doFinally(signal -> clearInFlight())
+                        .cache();
+            }
+            return inFlight;
+        }
+    }
+
+    private void clearInFlight() {
+        synchronized (lock) {
+            inFlight = null;
+        }
+    }
+
+    private Mono<AdminToken> requestToken() {
+        String adminClientId = getAdminClientId();
+        String adminClientSecret = properties.getAdmin().getClientSecret() != null
+                ? properties.getAdmin().getClientSecret()
+                : properties.getClientSecret();
+
+        // Use admin realm for authentication (typically "master")
+        return webClient
+                .post()
+                .uri(endpoints.adminToken())
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .body(BodyInserters
+                        .fromFormData("grant_type", "client_credentials")
+                        .with("client_id", adminClientId)
+                        .with("client_secret", adminClientSecret)
+                )
+                .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.ADMIN_TOKEN)
+                .retrieve()
+                .bodyToMono(TokenRepresentation.class)
+                .map(this::toAdminToken)
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        ("Failed to obtain admin access token using client '%s'. " +
+                        "Please verify that 'fractalhive.keycloak.client-id' and 'fractalhive.keycloak.client-secret' " +
+                        "(or 'fractalhive.keycloak.admin.client-id' and 'fractalhive.keycloak.admin.client-secret') " +
+                        "are correctly configured. Error: %s").formatted(adminClientId, ex.getResponseBodyAsString()),
+                        ex
+                ));
+    }
+
+    private AdminToken toAdminToken(TokenRepresentation token) {
+        Instant now = Instant.now();
+        long expiresIn = token.expiresIn();
+
+        Duration lifetime = Duration.ofSeconds(expiresIn);
+        Duration skew = properties.getAdmin().getTokenExpirySkew();
+        Duration maxSkew = Duration.ofMillis((long) (lifetime.toMillis() * MAX_SKEW_FRACTION));
+        if (skew.compareTo(maxSkew) > 0) {
+            skew = maxSkew;
+        }
+
+        Instant expiresAt = now.plus(lifetime).minus(skew);
+        Instant refreshAt = now.plusMillis((long) (expiresIn * 1000 * properties.getAdmin().getTokenRefreshRatio()));
+        if (refreshAt.isAfter(expiresAt)) {
+            refreshAt = expiresAt;
+        }
+
+        return new AdminToken(token.accessToken(), refreshAt, expiresAt);
+    }
+
+    private void onTokenObtained(AdminToken token) {
+        current = token;
+
+        Duration delay = Duration.between(Instant.now(), token.refreshAt());
+        if (delay.compareTo(MIN_REFRESH_DELAY) < 0) {
+            delay = MIN_REFRESH_DELAY;
+        }
+
+        synchronized (lock) {
+            failedRefreshes = 0;
+            scheduleRefresh(delay);
+        }
+    }
+
+    private void onRefreshFailed() {
+        synchronized (lock) {
+            failedRefreshes++;
+            long backoffMillis = MIN_REFRESH_DELAY.toMillis() << Math.min(failedRefreshes - 1, 16);
+            scheduleRefresh(Duration.ofMillis(Math.min(backoffMillis, MAX_RETRY_DELAY.toMillis())));
+        }
+    }
+
+    private void scheduleRefresh(Duration delay) {
+        if (destroyed) {
+            return;
+        }
+        if (scheduledRefresh != null) {
+            scheduledRefresh.dispose();
+        }
+        scheduledRefresh = Mono.delay(delay)
+                .subscribe(tick -> refreshInBackground());
+    }
+
+    private String getAdminClientId() {
+        return properties.getAdmin().getClientId() != null
+                ? properties.getAdmin().getClientId()
+                : properties.getClientId();
+    }
+
+    private record AdminToken(String value, Instant refreshAt, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,272 @@
+package com.fractalhive.keycloak.service;
+
+import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.util.Objects;
+
+/**
+ * Keycloak endpoints used by the starter, parsed once instead of on every call.
+ * <p>
+ * Each endpoint is a pre-parsed, pre-encoded URI template; calls only substitute and encode their variables
+ * (role names, user ids, ...) and receive a ready {@link URI}, which {@code WebClient} uses as is. The
+ * templates are rebuilt when {@code server-url}, {@code realm} or {@code admin-realm} change, e.g. after a
+ * configuration refresh; that check compares three strings.
+ * </p>
+ */
+@Component
+public class KeycloakEndpoints {
+
+    private final KeycloakAuthProperties properties;
+
+    private volatile Templates templates;
+
+    public KeycloakEndpoints(KeycloakAuthProperties properties) {
+        this.properties = properties;
+        this.templates = new Templates(properties);
+    }
+
+    /**
+     * Token endpoint of the target realm.
+     */
+    public URI token() {
+        return templates().token;
+    }
+
+    /**
+     * Logout endpoint of the target realm.
+     */
+    public URI logout() {
+        return templates().logout;
+    }
+
+    /**
+     * Token introspection endpoint of the target realm.
+     */
+    public URI introspect() {
+        return templates().introspect;
+    }
+
+    /**
+     * JWK set endpoint of the target realm.
+     */
+    public URI certs() {
+        return templates().certs;
+    }
+
+    /**
+     * Token endpoint of the admin realm, for admin access tokens.
+     */
+    public URI adminToken() {
+        return templates().adminToken;
+    }
+
+    public URI users() {
+        return templates().users;
+    }
+
+    public URI usersByEmail(String email) {
+        return expand(templates().usersByEmail, email);
+    }
+
+    public URI user(String userId) {
+        return expand(templates().user, userId);
+    }
+
+    public URI executeActionsEmail(String userId) {
+        return expand(templates().executeActionsEmail, userId);
+    }
+
+    public URI resetPassword(String userId) {
+        return expand(templates().resetPassword, userId);
+    }
+
+    public URI sendVerifyEmail(String userId) {
+        return expand(templates().sendVerifyEmail, userId);
+    }
+
+    public URI realmRoles() {
+        return templates().realmRoles;
+    }
+
+    /**
+     * One page of realm roles.
+     *
+     * @param search substring of the role name to filter on, or {@code null} for all roles
+     */
+    public URI realmRolesPage(String search, boolean briefRepresentation, int first, int max) {
+        return search != null
+                ? expand(templates().realmRolesSearchPage, search, briefRepresentation, first, max)
+                : expand(templates().realmRolesPage, briefRepresentation, first, max);
+    }
+
+    public URI realmRole(String roleName) {
+        return expand(templates().realmRole, roleName);
+    }
+
+    public URI realmRoleComposites(String roleName) {
+        return expand(templates().realmRoleComposites, roleName);
+    }
+
+    /**
+     * Clients with the given OAuth client id, to find a client's internal id.
+     */
+    public URI clientsByClientId(String clientId) {
+        return expand(templates().clientsByClientId, clientId);
+    }
+
+    /**
+     * Roles of a client, by the client's internal id (see {@link #clientsByClientId(String)}).
+     */
+    public URI clientRoles(String clientUuid) {
+        return expand(templates().clientRoles, clientUuid);
+    }
+
+    /**
+     * One page of a client's roles, by the client's internal id.
+     */
+    public URI clientRolesPage(String clientUuid, boolean briefRepresentation, int first, int max) {
+        return expand(templates().clientRolesPage, clientUuid, briefRepresentation, first, max);
+    }
+
+    public URI clientRole(String clientUuid, String roleName) {
+        return expand(templates().clientRole, clientUuid, roleName);
+    }
+
+    /**
+     * All direct realm and client role mappings of a user.
+     */
+    public URI userRoleMappings(String userId) {
+        return expand(templates().userRoleMappings, userId);
+    }
+
+    public URI userRealmRoleMappings(String userId) {
+        return expand(templates().userRealmRoleMappings, userId);
+    }
+
+    /**
+     * Direct role mappings of a user for one client, by the client's internal id.
+     */
+    public URI userClientRoleMappings(String userId, String clientUuid) {
+        return expand(templates().userClientRoleMappings, userId, clientUuid);
+    }
+
+    /**
+     * Realm roles a user holds directly or through composite roles.
+     */
+    public URI userRealmCompositeRoles(String userId) {
+        return expand(templates().userRealmCompositeRoles, userId);
+    }
+
+    /**
+     * Roles of a client a user holds directly or through composite roles, by the client's internal id.
+     */
+    public URI userClientCompositeRoles(String userId, String clientUuid) {
+        return expand(templates().userClientCompositeRoles, userId, clientUuid);
+    }
+
+    private Templates templates() {
+        Templates current = templates;
+        if (!current.matches(properties)) {
+            current = new Templates(properties);
+            templates = current;
+        }
+        return current;
+    }
+
+    private static URI expand(UriComponents template, Object... uriVariables) {
+        return template.expand(uriVariables).toUri();
+    }
+
+    /**
+     * Endpoints for one combination of server URL, realm and admin realm.
+     */
+    private static final class Templates {
+
+        private final String serverUrl;
+        private final String realm;
+        private final String adminRealm;
+
+        private final URI token;
+        private final URI logout;
+        private final URI introspect;
+        private final URI certs;
+        private final URI adminToken;
+        private final URI users;
+        private final URI realmRoles;
+
+        private final UriComponents usersByEmail;
+        private final UriComponents user;
+        private final UriComponents executeActionsEmail;
+        private final UriComponents resetPassword;
+        private final UriComponents sendVerifyEmail;
+        private final UriComponents realmRolesPage;
+        private final UriComponents realmRolesSearchPage;
+        private final UriComponents realmRole;
+        private final UriComponents realmRoleComposites;
+        private final UriComponents clientsByClientId;
+        private final UriComponents clientRoles;
+        private final UriComponents clientRolesPage;
+        private final UriComponents clientRole;
+        private final UriComponents userRoleMappings;
+        private final UriComponents userRealmRoleMappings;
+        private final UriComponents userClientRoleMappings;
+        private final UriComponents userRealmCompositeRoles;
+        private final UriComponents userClientCompositeRoles;
+
+        private Templates(KeycloakAuthProperties properties) {
+            this.serverUrl = properties.getServerUrl();
+            this.realm = properties.getRealm();
+            this.adminRealm = properties.getAdminRealm();
+
+            String authUrl = properties.getAuthUrl();
+            String adminUrl = properties.getAdminUrl();
+
+            this.token = URI.create(authUrl + "/token");
+            this.logout = URI.create(authUrl + "/logout");
+            this.introspect = URI.create(authUrl + "/token/introspect");
+            this.certs = URI.create(authUrl + "/certs");
+            this.adminToken = URI.create(properties.getAdminAuthUrl() + "/token");
+            this.users = URI.create(adminUrl + "/users");
+            this.realmRoles = URI.create(adminUrl + "/roles");
+
+            this.usersByEmail = parse(adminUrl + "/users?email={email}&exact=true");
+            this.user = parse(adminUrl + "/users/{userId}");
+            this.executeActionsEmail = parse(adminUrl + "/users/{userId}/execute-actions-email");
+            this.resetPassword = parse(adminUrl + "/users/{userId}/reset-password");
+            this.sendVerifyEmail = parse(adminUrl + "/users/{userId}/send-verify-email");
+            this.realmRolesPage = parse(adminUrl + "/roles?briefRepresentation={brief}&first={first}&max={max}");
+            this.realmRolesSearchPage = parse(adminUrl
+                    + "/roles?search={search}&briefRepresentation={brief}&first={first}&max={max}");
+            this.realmRole = parse(adminUrl + "/roles/{roleName}");
+            this.realmRoleComposites = parse(adminUrl + "/roles/{roleName}/composites");
+            this.clientsByClientId = parse(adminUrl + "/clients?clientId={clientId}");
+            this.clientRoles = parse(adminUrl + "/clients/{clientUuid}/roles");
+            this.clientRolesPage = parse(adminUrl
+                    + "/clients/{clientUuid}/roles?briefRepresentation={brief}&first={first}&max={max}");
+            this.clientRole = parse(adminUrl + "/clients/{clientUuid}/roles/{roleName}");
+            this.userRoleMappings = parse(adminUrl + "/users/{userId}/role-mappings");
+            this.userRealmRoleMappings = parse(adminUrl + "/users/{userId}/role-mappings/realm");
+            this.userClientRoleMappings = parse(adminUrl + "/users/{userId}/role-mappings/clients/{clientUuid}");
+            this.userRealmCompositeRoles = parse(adminUrl + "/users/{userId}/role-mappings/realm/composite");
+            this.userClientCompositeRoles = parse(adminUrl
+                    + "/users/{userId}/role-mappings/clients/{clientUuid}/composite");
+        }
+
+        private boolean matches(KeycloakAuthProperties properties) {
+            return Objects.equals(serverUrl, properties.getServerUrl())
+                    && Objects.equals(realm, properties.getRealm())
+                    && Objects.equals(adminRealm, properties.getAdminRealm());
+        }
+
+        /**
+         * Parse and encode the template once; {@link UriComponents#expand} then only encodes the variables.
+         */
+        private static UriComponents parse(String uriTemplate) {
+            return UriComponentsBuilder.fromUriString(uriTemplate).encode().build();
+        }
+    }
+}
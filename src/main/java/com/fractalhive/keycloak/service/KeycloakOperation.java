@@ -0,0 +1,114 @@
+package com.fractalhive.keycloak.service;
+
+import java.util.Locale;
+
+/**
+ * Keycloak calls made by the starter, used to label request metrics and to apply resilience policies.
+ * <p>
+ * Every call sets its operation as the {@link #ATTRIBUTE} request attribute of the {@code WebClient}
+ * request.
+ * </p>
+ * <p>
+ * Each operation belongs to a {@link Traffic} class, so end-user calls (login, refresh, key downloads) and
+ * Admin API calls get separate circuit breakers and bulkheads. Operations marked idempotent can be sent
+ * again after a timeout or a transient failure without changing the outcome; only those are retried.
+ * Login is not, because every failed attempt counts towards Keycloak's brute force detection, and neither
+ * is refresh, because Keycloak may revoke a refresh token once it has been used.
+ * </p>
+ */
+public enum KeycloakOperation {
+
+    LOGIN(Traffic.USER, false),
+    REFRESH(Traffic.USER, false),
+    LOGOUT(Traffic.USER, false),
+    ADMIN_TOKEN(Traffic.ADMIN, true),
+    FETCH_JWKS(Traffic.USER, true),
+    INTROSPECT(Traffic.USER, true),
+
+    REGISTER(Traffic.ADMIN, false),
+    GET_USER(Traffic.ADMIN, true),
+    FIND_USER_BY_EMAIL(Traffic.ADMIN, true),
+    UPDATE_USER(Traffic.ADMIN, true),
+    DELETE_USER(Traffic.ADMIN, true),
+
+    REQUEST_PASSWORD_RESET(Traffic.ADMIN, false),
+    RESET_PASSWORD(Traffic.ADMIN, true),
+    CHANGE_PASSWORD(Traffic.ADMIN, true),
+    SEND_VERIFICATION_EMAIL(Traffic.ADMIN, false),
+
+    CREATE_ROLE(Traffic.ADMIN, false),
+    CREATE_CLIENT_ROLE(Traffic.ADMIN, false),
+    GET_ROLE(Traffic.ADMIN, true),
+    GET_CLIENT_ROLE(Traffic.ADMIN, true),
+    LIST_ROLES(Traffic.ADMIN, true),
+    UPDATE_ROLE(Traffic.ADMIN, true),
+    DELETE_ROLE(Traffic.ADMIN, true),
+    // Keycloak ignores role mappings and composites that already exist
+    ADD_COMPOSITES(Traffic.ADMIN, true),
+    REMOVE_COMPOSITES(Traffic.ADMIN, true),
+    ASSIGN_ROLE(Traffic.ADMIN, true),
+    REMOVE_ROLE(Traffic.ADMIN, true),
+    GET_USER_ROLES(Traffic.ADMIN, true),
+    GET_EFFECTIVE_ROLES(Traffic.ADMIN, true),
+
+    GET_CLIENT(Traffic.ADMIN, true);
+
+    /**
+     * {@code WebClient} request attribute holding the operation.
+     */
+    public static final String ATTRIBUTE = KeycloakOperation.class.getName();
+
+    private final Traffic traffic;
+    private final boolean idempotent;
+    private final String tagValue = name().toLowerCase(Locale.ROOT).replace('_', '-');
+
+    KeycloakOperation(Traffic traffic, boolean idempotent) {
+        this.traffic = traffic;
+        this.idempotent = idempotent;
+    }
+
+    /**
+     * Traffic class the operation belongs to.
+     */
+    public Traffic traffic() {
+        return traffic;
+    }
+
+    /**
+     * Whether repeating the call has the same effect as making it once, so it may be retried.
+     */
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+
+    /**
+     * Operation name used as metric tag, e.g. {@code admin-token}.
+     */
+    public String tagValue() {
+        return tagValue;
+    }
+
+    /**
+     * Class of Keycloak traffic, isolated from the other class by its own circuit breaker and bulkhead.
+     */
+    public enum Traffic {
+        /**
+         * Calls on behalf of end users: login, refresh, logout, token introspection and signing key downloads.
+         */
+        USER,
+
+        /**
+         * Admin API calls and the admin token requests they need.
+         */
+        ADMIN;
+
+        private final String tagValue = name().toLowerCase(Locale.ROOT);
+
+        /**
+         * Traffic class name used as metric tag, e.g. {@code admin}.
+         */
+        public String tagValue() {
+            return tagValue;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.fractalhive.keycloak.service;
+
+import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+import com.fractalhive.keycloak.exception.KeycloakAuthException;
+import com.fractalhive.keycloak.representation.ClientRepresentation;
+import com.fractalhive.keycloak.representation.RoleRepresentation;
+import com.fractalhive.keycloak.util.SingleFlight;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * In-memory catalog of realm and client roles (name, id, composite flag and description).
+ * <p>
+ * Role mutations need a role's id, which Keycloak only returns from a lookup. The catalog is loaded when
+ * the application starts, before the web server accepts requests, reloaded every
+ * {@code role-catalog.refresh-interval} and invalidated by {@link ReactiveKeycloakRoleService} on its
+ * own create, update and delete calls, so a role mutation normally costs a single Admin API call. Roles
+ * missing from the catalog are looked up in Keycloak and added to it; concurrent lookups of the same role
+ * share a single call.
+ * </p>
+ * <p>
+ * Client roles of the configured {@code client-id} are loaded up front; roles of other clients are added
+ * as they are looked up. Clients are named by their OAuth client id; the client's internal id, which the
+ * Admin API expects in client role paths, is looked up once and kept. Realm and client roles are loaded
+ * independently, so a client that cannot be loaded does not discard the realm roles.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class KeycloakRoleCatalog implements SmartLifecycle {
+
+    /**
+     * Lifecycle phase, ahead of the embedded web server ({@code DEFAULT_PHASE - 2048}), so the catalog is
+     * loaded before the first request is accepted.
+     */
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final WebClient webClient;
+    private final KeycloakAuthProperties properties;
+    private final KeycloakEndpoints endpoints;
+    private final KeycloakAdminTokenManager adminTokenManager;
+
+    private final Map<String, Map<String, CatalogRole>> clientRoles = new ConcurrentHashMap<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final AtomicLong generation = new AtomicLong();
+    private final SingleFlight<String, CatalogRole> lookups = new SingleFlight<>();
+    private final Map<String, Mono<String>> clientUuids = new ConcurrentHashMap<>();
+
+    private volatile Map<String, CatalogRole> realmRoles = new ConcurrentHashMap<>();
+    private volatile Disposable scheduledRefresh;
+
+    /**
+     * Find a realm role, looking it up in Keycloak when it is not in the catalog.
+     */
+    public Mono<CatalogRole> findRealmRole(String roleName) {
+        CatalogRole role = isEnabled() ? realmRoles.get(roleName) : null;
+        if (role != null) {
+            return Mono.just(role);
+        }
+
+        return lookups.execute("realm/" + roleName, key -> fetchRole(
+                        KeycloakOperation.GET_ROLE, endpoints.realmRole(roleName)))
+                .doOnNext(fetched -> {
+                    if (isEnabled()) {
+                        realmRoles.put(fetched.name(), fetched);
+                    }
+                })
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Failed to get role: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ));
+    }
+
+    /**
+     * Find a client role, looking it up in Keycloak when it is not in the catalog.
+     */
+    public Mono<CatalogRole> findClientRole(String clientId, String roleName) {
+        CatalogRole role = isEnabled() ? clientRoles.getOrDefault(clientId, Map.of()).get(roleName) : null;
+        if (role != null) {
+            return Mono.just(role);
+        }
+
+        return lookups.execute("client/" + clientId + "/" + roleName, key -> findClientUuid(clientId)
+                        .flatMap(clientUuid -> fetchRole(
+                                KeycloakOperation.GET_CLIENT_ROLE, endpoints.clientRole(clientUuid, roleName))))
+                .doOnNext(fetched -> {
+                    if (isEnabled()) {
+                        clientRoles.computeIfAbsent(clientId, id -> new ConcurrentHashMap<>()).put(fetched.name(), fetched);
+                    }
+                })
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Failed to get client role: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ));
+    }
+
+    /**
+     * Internal id (UUID) of the client with OAuth client id {@code clientId}, looked up once per client;
+     * failed lookups are not kept.
+     *
+     * @throws KeycloakAuthException (as error signal) if the realm has no such client
+     */
+    public Mono<String> findClientUuid(String clientId) {
+        return clientUuids.computeIfAbsent(clientId, id -> adminTokenManager.getAccessToken()
+                .flatMapMany(adminToken -> webClient
+                        .get()
+                        .uri(endpoints.clientsByClientId(id))
+                        .headers(h -> h.setBearerAuth(adminToken))
+                        .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.GET_CLIENT)
+                        .retrieve()
+                        .bodyToFlux(ClientRepresentation.class))
+                .filter(client -> id.equals(client.clientId()))
+                .map(ClientRepresentation::id)
+                .next()
+                .switchIfEmpty(Mono.error(() -> new KeycloakAuthException("Client not found: " + id)))
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Failed to look up client: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ))
+                .cache(uuid -> Duration.ofMillis(Long.MAX_VALUE), ex -> Duration.ZERO, () -> Duration.ZERO));
+    }
+
+    /**
+     * Drop a realm role from the catalog after it was created, changed or deleted.
+     */
+    public void invalidateRealmRole(String roleName) {
+        generation.incrementAndGet();
+        lookups.forget("realm/" + roleName);
+        realmRoles.remove(roleName);
+    }
+
+    /**
+     * Drop a client role from the catalog after it was created, changed or deleted.
+     */
+    public void invalidateClientRole(String clientId, String roleName) {
+        generation.incrementAndGet();
+        lookups.forget("client/" + clientId + "/" + roleName);
+        Map<String, CatalogRole> roles = clientRoles.get(clientId);
+        if (roles != null) {
+            roles.remove(roleName);
+        }
+    }
+
+    /**
+     * Reload the realm roles and the roles of every known client from Keycloak.
+     * <p>
+     * The realm roles and each client's roles are replaced as soon as they are loaded; a client whose
+     * roles cannot be loaded keeps its previous entries and does not fail the reload. The returned
+     * {@code Mono} fails if the realm roles cannot be loaded. A reload that overlaps with an invalidation
+     * is discarded, so it cannot bring back a role that was changed while it was running.
+     * </p>
+     */
+    public Mono<Void> refresh() {
+        return Mono.defer(() -> {
+            long startGeneration = generation.get();
+            Set<String> clientIds = ConcurrentHashMap.newKeySet();
+            clientIds.add(properties.getClientId());
+            clientIds.addAll(clientRoles.keySet());
+
+            Mono<Void> realm = listRoles((first, max) -> endpoints.realmRolesPage(null, true, first, max))
+                    .doOnNext(roles -> {
+                        if (isCurrent(startGeneration)) {
+                            realmRoles = roles;
+                        }
+                    })
+                    .then();
+            Mono<Void> clients = Flux.fromIterable(clientIds)
+                    .flatMap(clientId -> findClientUuid(clientId)
+                            .flatMap(clientUuid -> listRoles(
+                                    (first, max) -> endpoints.clientRolesPage(clientUuid, true, first, max)))
+                            .doOnNext(roles -> {
+                                if (isCurrent(startGeneration)) {
+                                    clientRoles.put(clientId, roles);
+                                }
+                            })
+                            .doOnError(ex -> log.warn("Loading the roles of client '{}' failed: {}",
+                                    clientId, ex.getMessage()))
+                            .onErrorResume(ex -> Mono.empty()))
+                    .then();
+
+            return Mono.whenDelayError(realm, clients);
+        });
+    }
+
+    @Override
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        try {
+            refresh().block(properties.getRoleCatalog().getWarmupTimeout());
+        } catch (RuntimeException ex) {
+            log.warn("Could not load the role catalog at startup, retrying in the background: {}", ex.getMessage());
+        }
+
+        scheduleRefresh(properties.getRoleCatalog().getRefreshInterval());
+    }
+
+    /**
+     * Load the catalog in the background now and every {@code role-catalog.refresh-interval}, without
+     * waiting for the first load.
+     */
+    public void startInBackground() {
+        if (isEnabled()) {
+            scheduleRefresh(Duration.ZERO);
+        }
+    }
+
+    @Override
+    public void stop() {
+        Disposable task = scheduledRefresh;
+        if (task != null) {
+            task.dispose();
+            scheduledRefresh = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduledRefresh != null;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void scheduleRefresh(Duration initialDelay) {
+        scheduledRefresh = Flux.interval(initialDelay, properties.getRoleCatalog().getRefreshInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> refreshQuietly())
+                .subscribe();
+    }
+
+    private boolean isCurrent(long startGeneration) {
+        if (generation.get() != startGeneration) {
+            log.debug("Discarding role catalog reload that overlapped with a role change");
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isEnabled() {
+        return properties.getRoleCatalog().isEnabled();
+    }
+
+    private Mono<Void> refreshQuietly() {
+        return Mono.defer(() -> {
+            if (!refreshing.compareAndSet(false, true)) {
+                return Mono.empty();
+            }
+
+            return refresh()
+                    .doOnError(ex -> log.warn("Loading the role catalog failed: {}", ex.getMessage()))
+                    .onErrorResume(ex -> Mono.empty())
+                    .doFinally(signal -> refreshing.set(false));
+        });
+    }
+
+    private Mono<CatalogRole> fetchRole(KeycloakOperation operation, URI uri) {
+        return adminTokenManager.getAccessToken()
+                .flatMap(adminToken -> webClient
+                        .get()
+                        .uri(uri)
+                        .headers(h -> h.setBearerAuth(adminToken))
+                        .attribute(KeycloakOperation.ATTRIBUTE, operation)
+                        .retrieve()
+                        .bodyToMono(RoleRepresentation.class))
+                .map(CatalogRole::fromRepresentation);
+    }
+
+    /**
+     * Page through a role list endpoint; {@code pageUri} maps {@code first} and {@code max} to the page URI.
+     */
+    private Mono<Map<String, CatalogRole>> listRoles(BiFunction<Integer, Integer, URI> pageUri) {
+        return AdminPages.fetchAll(properties.getAdmin().getPageSize(), (first, max) -> fetchPage(pageUri.apply(first, max)))
+                .collect(ConcurrentHashMap::new, (roles, role) -> roles.put(role.name(), role));
+    }
+
+    private Flux<CatalogRole> fetchPage(URI uri) {
+        return adminTokenManager.getAccessToken()
+                .flatMapMany(adminToken -> webClient
+                        .get()
+                        .uri(uri)
+                        .headers(h -> h.setBearerAuth(adminToken))
+                        .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.LIST_ROLES)
+                        .retrieve()
+                        .bodyToFlux(RoleRepresentation.class))
+                .map(CatalogRole::fromRepresentation);
+    }
+
+    /**
+     * Catalog entry for a single role.
+     */
+    public record CatalogRole(String id, String name, String description, boolean composite) {
+
+        static CatalogRole fromRepresentation(RoleRepresentation role) {
+            return new CatalogRole(
+                    role.id() != null ? role.id() : "",
+                    role.name() != null ? role.name() : "",
+                    role.description() != null ? role.description() : "",
+                    Boolean.TRUE.equals(role.composite())
+            );
+        }
+    }
+}
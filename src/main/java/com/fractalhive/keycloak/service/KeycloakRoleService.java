@@ -1,440 +1,145 @@
 package com.fractalhive.keycloak.service;
 
-import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+import com.fractalhive.keycloak.dto.BulkRoleAssignmentResponse;
+import com.fractalhive.keycloak.dto.EffectiveRolesResponse;
 import com.fractalhive.keycloak.dto.RoleRequest;
 import com.fractalhive.keycloak.dto.RoleResponse;
-import com.fractalhive.keycloak.exception.KeycloakAuthException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.BodyInserters;
-import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.reactive.function.client.WebClientResponseException;
 
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service for Keycloak role management operations.
+ * <p>
+ * Blocking adapter over {@link ReactiveKeycloakRoleService}.
+ * </p>
  */
 @Service
 @RequiredArgsConstructor
 public class KeycloakRoleService {
 
-    private final WebClient webClient;
-    private final KeycloakAuthProperties properties;
-    private final KeycloakAuthService keycloakAuthService;
+    private final ReactiveKeycloakRoleService reactiveRoleService;
 
     /**
      * Create a realm-level role.
      */
     public RoleResponse createRealmRole(RoleRequest roleRequest) {
-        try {
-            String adminToken = keycloakAuthService.getAdminAccessToken();
-
-            Map<String, Object> roleRepresentation = Map.of(
-                    "name", roleRequest.name(),
-                    "description", roleRequest.description() != null ? roleRequest.description() : ""
-            );
-
-            webClient
-                    .post()
-                    .uri(properties.getAdminUrl() + "/roles")
-                    .headers(h -> h.setBearerAuth(adminToken))
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(BodyInserters.fromValue(roleRepresentation))
-                    .retrieve()
-                    .toBodilessEntity()
-                    .block();
-
-            return getRole(roleRequest.name());
-
-        } catch (WebClientResponseException ex) {
-            throw new KeycloakAuthException(
-                    "Role creation failed. Please verify that 'fractalhive.keycloak.server-url' and " +
-                    "'fractalhive.keycloak.realm' are correctly configured. Error: %s"
-                            .formatted(ex.getResponseBodyAsString()),
-                    ex
-            );
-        }
+        return reactiveRoleService.createRealmRole(roleRequest).block();
     }
 
     /**
      * Create a client-level role.
      */
     public RoleResponse createClientRole(String clientId, RoleRequest roleRequest) {
-        try {
-            String adminToken = keycloakAuthService.getAdminAccessToken();
-
-            Map<String, Object> roleRepresentation = Map.of(
-                    "name", roleRequest.name(),
-                    "description", roleRequest.description() != null ? roleRequest.description() : ""
-            );
-
-            webClient
-                    .post()
-                    .uri(properties.getAdminUrl() + "/clients/{clientId}/roles", clientId)
-                    .headers(h -> h.setBearerAuth(adminToken))
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(BodyInserters.fromValue(roleRepresentation))
-                    .retrieve()
-                    .toBodilessEntity()
-                    .block();
-
-            return getClientRole(clientId, roleRequest.name());
-
-        } catch (WebClientResponseException ex) {
-            throw new KeycloakAuthException(
-                    "Client role creation failed: %s".formatted(ex.getResponseBodyAsString()),
-                    ex
-            );
-        }
+        return reactiveRoleService.createClientRole(clientId, roleRequest).block();
     }
 
     /**
      * Get realm role details.
      */
     public RoleResponse getRole(String roleName) {
-        try {
-            String adminToken = keycloakAuthService.getAdminAccessToken();
-
-            Map<String, Object> role = webClient
-                    .get()
-                    .uri(properties.getAdminUrl() + "/roles/{roleName}", roleName)
-                    .headers(h -> h.setBearerAuth(adminToken))
-                    .retrieve()
-                    .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {
-                    })
-                    .block();
-
-            return mapToRoleResponse(role);
+        return reactiveRoleService.getRole(roleName).block();
+    }
 
-        } catch (WebClientResponseException ex) {
-            throw new KeycloakAuthException(
-                    "Failed to get role: %s".formatted(ex.getResponseBodyAsString()),
-                    ex
-            );
-        }
+    /**
+     * List realm roles, optionally filtered by name.
+     * <p>
+     * Roles are fetched page by page while the returned stream is consumed. Close the stream when done
+     * to cancel any remaining pages.
+     * </p>
+     */
+    public Stream<RoleResponse> listRoles(String search, boolean briefRepresentation) {
+        return reactiveRoleService.listRoles(search, briefRepresentation).toStream();
     }
 
     /**
      * Get client role details.
      */
     public RoleResponse getClientRole(String clientId, String roleName) {
-        try {
-            String adminToken = keycloakAuthService.getAdminAccessToken();
-
-            Map<String, Object> role = webClient
-                    .get()
-                    .uri(properties.getAdminUrl() + "/clients/{clientId}/roles/{roleName}", clientId, roleName)
-                    .headers(h -> h.setBearerAuth(adminToken))
-                    .retrieve()
-                    .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {
-                    })
-                    .block();
-
-            return mapToRoleResponse(role);
-
-        } catch (WebClientResponseException ex) {
-            throw new KeycloakAuthException(
-                    "Failed to get client role: %s".formatted(ex.getResponseBodyAsString()),
-                    ex
-            );
-        }
+        return reactiveRoleService.getClientRole(clientId, roleName).block();
     }
 
     /**
      * Update a realm role.
      */
     public RoleResponse updateRole(String roleName, RoleRequest roleRequest) {
-        try {
-            String adminToken = keycloakAuthService.getAdminAccessToken();
-
-            Map<String, Object> roleRepresentation = Map.of(
-                    "name", roleRequest.name(),
-                    "description", roleRequest.description() != null ? roleRequest.description() : ""
-            );
-
-            webClient
-                    .put()
-                    .uri(properties.getAdminUrl() + "/roles/{roleName}", roleName)
-                    .headers(h -> h.setBearerAuth(adminToken))
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(BodyInserters.fromValue(roleRepresentation))
-                    .retrieve()
-                    .toBodilessEntity()
-                    .block();
-
-            return getRole(roleRequest.name());
-
-        } catch (WebClientResponseException ex) {
-            throw new KeycloakAuthException(
-                    "Role update failed: %s".formatted(ex.getResponseBodyAsString()),
-                    ex
-            );
-        }
+        return reactiveRoleService.updateRole(roleName, roleRequest).block();
     }
 
     /**
      * Delete a realm role.
      */
     public void deleteRole(String roleName) {
-        try {
-            String adminToken = keycloakAuthService.getAdminAccessToken();
-
-            webClient
-                    .delete()
-                    .uri(properties.getAdminUrl() + "/roles/{roleName}", roleName)
-                    .headers(h -> h.setBearerAuth(adminToken))
-                    .retrieve()
-                    .toBodilessEntity()
-                    .block();
-
-        } catch (WebClientResponseException ex) {
-            throw new KeycloakAuthException(
-                    "Role deletion failed: %s".formatted(ex.getResponseBodyAsString()),
-                    ex
-            );
-        }
+        reactiveRoleService.deleteRole(roleName).block();
     }
 
     /**
      * Assign role to user.
      */
     public void assignRoleToUser(String userId, String roleName, boolean isRealmRole) {
-        try {
-            String adminToken = keycloakAuthService.getAdminAccessToken();
-
-            RoleResponse role = isRealmRole 
-                    ? getRole(roleName) 
-                    : getClientRole(properties.getClientId(), roleName);
-
-            List<Map<String, Object>> roleRepresentation = List.of(Map.of(
-                    "id", role.id(),
-                    "name", role.name()
-            ));
-
-            String endpoint = isRealmRole
-                    ? properties.getAdminUrl() + "/users/{userId}/role-mappings/realm"
-                    : properties.getAdminUrl() + "/users/{userId}/role-mappings/clients/{clientId}";
+        reactiveRoleService.assignRoleToUser(userId, roleName, isRealmRole).block();
+    }
 
-            if (isRealmRole) {
-                webClient
-                        .post()
-                        .uri(endpoint, userId)
-                        .headers(h -> h.setBearerAuth(adminToken))
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .body(BodyInserters.fromValue(roleRepresentation))
-                        .retrieve()
-                        .toBodilessEntity()
-                        .block();
-            } else {
-                webClient
-                        .post()
-                        .uri(endpoint, userId, properties.getClientId())
-                        .headers(h -> h.setBearerAuth(adminToken))
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .body(BodyInserters.fromValue(roleRepresentation))
-                        .retrieve()
-                        .toBodilessEntity()
-                        .block();
-            }
+    /**
+     * Assign several roles to a user with a single role-mapping call.
+     */
+    public void assignRolesToUser(String userId, Collection<String> roleNames, boolean isRealmRole) {
+        reactiveRoleService.assignRolesToUser(userId, roleNames, isRealmRole).block();
+    }
 
-        } catch (WebClientResponseException ex) {
-            throw new KeycloakAuthException(
-                    "Failed to assign role to user: %s".formatted(ex.getResponseBodyAsString()),
-                    ex
-            );
-        }
+    /**
+     * Assign the same roles to many users, reporting the outcome per user.
+     */
+    public BulkRoleAssignmentResponse assignRolesToUsers(
+            Collection<String> userIds,
+            Collection<String> roleNames,
+            boolean isRealmRole
+    ) {
+        return reactiveRoleService.assignRolesToUsers(userIds, roleNames, isRealmRole).block();
     }
 
     /**
      * Remove role from user.
      */
     public void removeRoleFromUser(String userId, String roleName, boolean isRealmRole) {
-        try {
-            String adminToken = keycloakAuthService.getAdminAccessToken();
-
-            RoleResponse role = isRealmRole 
-                    ? getRole(roleName) 
-                    : getClientRole(properties.getClientId(), roleName);
-
-            List<Map<String, Object>> roleRepresentation = List.of(Map.of(
-                    "id", role.id(),
-                    "name", role.name()
-            ));
-
-            String endpoint = isRealmRole
-                    ? properties.getAdminUrl() + "/users/{userId}/role-mappings/realm"
-                    : properties.getAdminUrl() + "/users/{userId}/role-mappings/clients/{clientId}";
-
-            if (isRealmRole) {
-                webClient
-                        .delete()
-                        .uri(endpoint, userId)
-                        .headers(h -> h.setBearerAuth(adminToken))
-                        .retrieve()
-                        .toBodilessEntity()
-                        .block();
-            } else {
-                webClient
-                        .delete()
-                        .uri(endpoint, userId, properties.getClientId())
-                        .headers(h -> h.setBearerAuth(adminToken))
-                        .retrieve()
-                        .toBodilessEntity()
-                        .block();
-            }
-
-        } catch (WebClientResponseException ex) {
-            throw new KeycloakAuthException(
-                    "Failed to remove role from user: %s".formatted(ex.getResponseBodyAsString()),
-                    ex
-            );
-        }
+        reactiveRoleService.removeRoleFromUser(userId, roleName, isRealmRole).block();
     }
 
     /**
      * Get all roles for a user.
      */
     public List<RoleResponse> getUserRoles(String userId) {
-        try {
-            String adminToken = keycloakAuthService.getAdminAccessToken();
-
-            List<Map<String, Object>> roles = webClient
-                    .get()
-                    .uri(properties.getAdminUrl() + "/users/{userId}/role-mappings/realm", userId)
-                    .headers(h -> h.setBearerAuth(adminToken))
-                    .retrieve()
-                    .bodyToMono(new ParameterizedTypeReference<List<Map<String, Object>>>() {
-                    })
-                    .block();
-
-            return roles != null
-                    ? roles.stream().map(this::mapToRoleResponse).collect(Collectors.toList())
-                    : List.of();
+        return reactiveRoleService.getUserRoles(userId).collectList().block();
+    }
 
-        } catch (WebClientResponseException ex) {
-            throw new KeycloakAuthException(
-                    "Failed to get user roles: %s".formatted(ex.getResponseBodyAsString()),
-                    ex
-            );
-        }
+    /**
+     * Get the roles a user effectively holds, including composite-expanded and client roles.
+     */
+    public EffectiveRolesResponse getEffectiveRoles(String userId) {
+        return reactiveRoleService.getEffectiveRoles(userId).block();
     }
 
     /**
      * Create a composite role (role with sub-roles).
      */
     public RoleResponse createCompositeRole(String roleName, List<String> subRoleNames) {
-        try {
-            String adminToken = keycloakAuthService.getAdminAccessToken();
-
-            // First create the role
-            createRealmRole(new RoleRequest(roleName, null));
-
-            // Get sub-roles
-            List<Map<String, String>> subRoles = subRoleNames.stream()
-                    .map(this::getRole)
-                    .map(role -> Map.of("id", role.id(), "name", role.name()))
-                    .collect(Collectors.toList());
-
-            // Make it composite
-            webClient
-                    .post()
-                    .uri(properties.getAdminUrl() + "/roles/{roleName}/composites", roleName)
-                    .headers(h -> h.setBearerAuth(adminToken))
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(BodyInserters.fromValue(subRoles))
-                    .retrieve()
-                    .toBodilessEntity()
-                    .block();
-
-            return getRole(roleName);
-
-        } catch (WebClientResponseException ex) {
-            throw new KeycloakAuthException(
-                    "Failed to create composite role: %s".formatted(ex.getResponseBodyAsString()),
-                    ex
-            );
-        }
+        return reactiveRoleService.createCompositeRole(roleName, subRoleNames).block();
     }
 
     /**
      * Add sub-role to composite role.
      */
     public void addSubRole(String compositeRoleName, String subRoleName) {
-        try {
-            String adminToken = keycloakAuthService.getAdminAccessToken();
-
-            RoleResponse subRole = getRole(subRoleName);
-            List<Map<String, Object>> roleRepresentation = List.of(Map.of(
-                    "id", subRole.id(),
-                    "name", subRole.name()
-            ));
-
-            webClient
-                    .post()
-                    .uri(properties.getAdminUrl() + "/roles/{roleName}/composites", compositeRoleName)
-                    .headers(h -> h.setBearerAuth(adminToken))
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(BodyInserters.fromValue(roleRepresentation))
-                    .retrieve()
-                    .toBodilessEntity()
-                    .block();
-
-        } catch (WebClientResponseException ex) {
-            throw new KeycloakAuthException(
-                    "Failed to add sub-role: %s".formatted(ex.getResponseBodyAsString()),
-                    ex
-            );
-        }
+        reactiveRoleService.addSubRole(compositeRoleName, subRoleName).block();
     }
 
     /**
      * Remove sub-role from composite role.
      */
     public void removeSubRole(String compositeRoleName, String subRoleName) {
-        try {
-            String adminToken = keycloakAuthService.getAdminAccessToken();
-
-            RoleResponse subRole = getRole(subRoleName);
-            List<Map<String, Object>> roleRepresentation = List.of(Map.of(
-                    "id", subRole.id(),
-                    "name", subRole.name()
-            ));
-
-            webClient
-                    .delete()
-                    .uri(properties.getAdminUrl() + "/roles/{roleName}/composites", compositeRoleName)
-                    .headers(h -> h.setBearerAuth(adminToken))
-                    .retrieve()
-                    .toBodilessEntity()
-                    .block();
-
-        } catch (WebClientResponseException ex) {
-            throw new KeycloakAuthException(
-                    "Failed to remove sub-role: %s".formatted(ex.getResponseBodyAsString()),
-                    ex
-            );
-        }
-    }
-
-    private RoleResponse mapToRoleResponse(Map<String, Object> role) {
-        String id = role.get("id") != null ? role.get("id").toString() : "";
-        String name = role.get("name") != null ? role.get("name").toString() : "";
-        String description = role.get("description") != null ? role.get("description").toString() : "";
-        Boolean composite = role.get("composite") != null ? (Boolean) role.get("composite") : false;
-        
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> composites = (List<Map<String, Object>>) role.get("composites");
-        List<String> subRoles = composites != null
-                ? composites.stream()
-                        .map(c -> c.get("name").toString())
-                        .collect(Collectors.toList())
-                : List.of();
-
-        return new RoleResponse(id, name, description, composite, subRoles);
+        reactiveRoleService.removeSubRole(compositeRoleName, subRoleName).block();
     }
 }
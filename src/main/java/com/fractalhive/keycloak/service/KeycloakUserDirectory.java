@@ -0,0 +1,220 @@
+package com.fractalhive.keycloak.service;
+
+import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+import com.fractalhive.keycloak.representation.UserRepresentation;
+import com.fractalhive.keycloak.util.SingleFlight;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared, bounded cache of Keycloak users keyed by email and by id.
+ * <p>
+ * Lookups that miss the cache query the Admin API and populate both keys; concurrent lookups of the same
+ * key share a single request, also when caching is disabled. Registration adds users, and
+ * {@link ReactiveKeycloakUserService} evicts them when it updates or deletes a user. Hit and miss counts
+ * are recorded ({@code fractalhive.keycloak.cache.users.*}).
+ * </p>
+ * <p>
+ * The email each cached user is stored under is indexed by user id, so evicting a user touches only that
+ * user's entries and lookups, whatever the cache size.
+ * </p>
+ */
+@Service
+public class KeycloakUserDirectory {
+
+    private final WebClient webClient;
+    private final KeycloakEndpoints endpoints;
+    private final KeycloakAdminTokenManager adminTokenManager;
+
+    private final AsyncCache<String, DirectoryUser> usersByEmail;
+    private final AsyncCache<String, DirectoryUser> usersById;
+    private final Map<String, String> emailsById = new ConcurrentHashMap<>();
+
+    private final SingleFlight<String, DirectoryUser> emailLookups = new SingleFlight<>();
+    private final SingleFlight<String, DirectoryUser> idLookups = new SingleFlight<>();
+
+    public KeycloakUserDirectory(
+            WebClient webClient,
+            KeycloakAuthProperties properties,
+            KeycloakEndpoints endpoints,
+            KeycloakAdminTokenManager adminTokenManager
+    ) {
+        this.webClient = webClient;
+        this.endpoints = endpoints;
+        this.adminTokenManager = adminTokenManager;
+
+        KeycloakAuthProperties.CacheSpec cacheSpec = properties.getCache().getUsers();
+        this.usersByEmail = cacheSpec.isEnabled()
+                ? buildCache(cacheSpec)
+                        .evictionListener((String email, DirectoryUser user, RemovalCause cause) -> {
+                            if (user != null) {
+                                emailsById.remove(user.id(), email);
+                            }
+                        })
+                        .buildAsync()
+                : null;
+        this.usersById = cacheSpec.isEnabled() ? buildCache(cacheSpec).buildAsync() : null;
+    }
+
+    /**
+     * Find a user by email.
+     *
+     * @return the user, or an empty {@code Mono} if no user has this email
+     */
+    public Mono<DirectoryUser> findByEmail(String email) {
+        String key = email.toLowerCase(Locale.ROOT);
+        if (usersByEmail == null) {
+            return emailLookups.execute(key, this::fetchByEmail);
+        }
+
+        return Mono.fromFuture(() -> usersByEmail.get(key, (k, executor) -> fetchByEmail(k)
+                .doOnNext(user -> {
+                    indexEmail(user.id(), k);
+                    usersById.synchronous().put(user.id(), user);
+                })
+                .toFuture()), true);
+    }
+
+    /**
+     * Find a user by id.
+     */
+    public Mono<DirectoryUser> findById(String userId) {
+        if (usersById == null) {
+            return idLookups.execute(userId, this::fetchById);
+        }
+
+        return Mono.fromFuture(() -> usersById.get(userId, (k, executor) -> fetchById(k)
+                .doOnNext(this::putByEmail)
+                .toFuture()), true);
+    }
+
+    /**
+     * Add a user that is known to exist, for example right after registering it.
+     */
+    public void put(DirectoryUser user) {
+        if (usersById == null) {
+            return;
+        }
+
+        usersById.synchronous().put(user.id(), user);
+        putByEmail(user);
+    }
+
+    /**
+     * Remove a user after it was changed or deleted, together with the entry of the email it was cached
+     * under; its email may have changed as well.
+     * <p>
+     * Without caching there is no record of a user's email, so a lookup by email that is already in flight
+     * is still shared until it completes.
+     * </p>
+     */
+    public void evict(String userId) {
+        idLookups.forget(userId);
+        if (usersById == null) {
+            return;
+        }
+
+        usersById.synchronous().invalidate(userId);
+        String email = emailsById.remove(userId);
+        if (email != null) {
+            usersByEmail.synchronous().invalidate(email);
+        }
+    }
+
+    /**
+     * Cache of users by email, or {@code null} when caching is disabled.
+     */
+    public Cache<String, DirectoryUser> getUsersByEmailCache() {
+        return usersByEmail != null ? usersByEmail.synchronous() : null;
+    }
+
+    /**
+     * Cache of users by id, or {@code null} when caching is disabled.
+     */
+    public Cache<String, DirectoryUser> getUsersByIdCache() {
+        return usersById != null ? usersById.synchronous() : null;
+    }
+
+    private static Caffeine<Object, Object> buildCache(KeycloakAuthProperties.CacheSpec cacheSpec) {
+        return Caffeine.newBuilder()
+                .maximumSize(cacheSpec.getMaximumSize())
+                .expireAfterWrite(cacheSpec.getTtl())
+                .recordStats();
+    }
+
+    private void putByEmail(DirectoryUser user) {
+        if (user.email() == null) {
+            return;
+        }
+
+        String email = user.email().toLowerCase(Locale.ROOT);
+        indexEmail(user.id(), email);
+        usersByEmail.synchronous().put(email, user);
+    }
+
+    /**
+     * Record the email a user is cached under, dropping the entry of a previous email of the user.
+     */
+    private void indexEmail(String userId, String email) {
+        String previous = emailsById.put(userId, email);
+        if (previous != null && !previous.equals(email)) {
+            usersByEmail.synchronous().invalidate(previous);
+        }
+    }
+
+    private Mono<DirectoryUser> fetchByEmail(String email) {
+        return adminTokenManager.getAccessToken()
+                .flatMapMany(adminToken -> webClient
+                        .get()
+                        .uri(endpoints.usersByEmail(email))
+                        .headers(h -> h.setBearerAuth(adminToken))
+                        .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.FIND_USER_BY_EMAIL)
+                        .retrieve()
+                        .bodyToFlux(UserRepresentation.class))
+                .next()
+                .map(DirectoryUser::fromRepresentation);
+    }
+
+    private Mono<DirectoryUser> fetchById(String userId) {
+        return adminTokenManager.getAccessToken()
+                .flatMap(adminToken -> webClient
+                        .get()
+                        .uri(endpoints.user(userId))
+                        .headers(h -> h.setBearerAuth(adminToken))
+                        .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.GET_USER)
+                        .retrieve()
+                        .bodyToMono(UserRepresentation.class))
+                .map(DirectoryUser::fromRepresentation);
+    }
+
+    /**
+     * Cached summary of a Keycloak user.
+     */
+    public record DirectoryUser(String id, String email, String firstName, String lastName) {
+
+        static DirectoryUser fromRepresentation(UserRepresentation user) {
+            return new DirectoryUser(
+                    user.id(),
+                    user.email() != null ? user.email().toLowerCase(Locale.ROOT) : null,
+                    user.firstName() != null ? user.firstName() : "",
+                    user.lastName() != null ? user.lastName() : ""
+            );
+        }
+
+        /**
+         * First and last name separated by a space.
+         */
+        public String fullName() {
+            return (firstName + " " + lastName).trim();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.fractalhive.keycloak.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fractalhive.keycloak.dto.UserImportResult;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link UserImportSink} that appends one JSON line per result to a file.
+ * <p>
+ * Opening an existing file resumes the import: users recorded as created or existing are skipped by the
+ * next run, failed users are tried again. Every line is flushed as it is written. A line left incomplete by
+ * a crash is ignored and terminated on reopening, so the next result starts on a line of its own.
+ * </p>
+ */
+@Slf4j
+public class NdjsonFileUserImportSink implements UserImportSink, Closeable {
+
+    private final ObjectMapper objectMapper;
+    private final Set<String> completedEmails = ConcurrentHashMap.newKeySet();
+    private final BufferedWriter writer;
+
+    public NdjsonFileUserImportSink(Path file) {
+        this(file, new ObjectMapper());
+    }
+
+    public NdjsonFileUserImportSink(Path file, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        try {
+            boolean partialLastLine = false;
+            if (Files.exists(file)) {
+                loadCompleted(Files.readAllLines(file, StandardCharsets.UTF_8));
+                partialLastLine = endsWithPartialLine(file);
+            }
+            this.writer = Files.newBufferedWriter(
+                    file,
+                    StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND
+            );
+            if (partialLastLine) {
+                writer.newLine();
+                writer.flush();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not open user import file " + file, ex);
+        }
+    }
+
+    @Override
+    public boolean isCompleted(String email) {
+        return completedEmails.contains(email);
+    }
+
+    @Override
+    public void record(UserImportResult result) {
+        try {
+            writer.write(objectMapper.writeValueAsString(result));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not record user import result for " + result.email(), ex);
+        }
+
+        if (result.isCompleted()) {
+            completedEmails.add(result.email());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private static boolean endsWithPartialLine(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return false;
+            }
+
+            ByteBuffer lastByte = ByteBuffer.allocate(1);
+            channel.read(lastByte, size - 1);
+            return lastByte.get(0) != '\n';
+        }
+    }
+
+    private void loadCompleted(List<String> lines) {
+        for (String line : lines) {
+            if (line.isBlank()) {
+                continue;
+            }
+
+            try {
+                UserImportResult result = objectMapper.readValue(line, UserImportResult.class);
+                if (result.isCompleted()) {
+                    completedEmails.add(result.email());
+                }
+            } catch (JsonProcessingException ex) {
+                log.warn("Ignoring unreadable line in user import file: {}", ex.getOriginalMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.fractalhive.keycloak.service;
+
+import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+import com.fractalhive.keycloak.dto.LoginRequest;
+import com.fractalhive.keycloak.dto.LoginResponse;
+import com.fractalhive.keycloak.exception.KeycloakAuthException;
+import com.fractalhive.keycloak.representation.TokenRepresentation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking service for Keycloak authentication operations.
+ * <p>
+ * {@link KeycloakAuthService} is a blocking adapter over this service.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveKeycloakAuthService {
+
+    private final WebClient webClient;
+    private final KeycloakAuthProperties properties;
+    private final KeycloakEndpoints endpoints;
+    private final KeycloakAdminTokenManager adminTokenManager;
+
+    /**
+     * Authenticate a user and return tokens.
+     */
+    public Mono<LoginResponse> login(LoginRequest loginRequest) {
+        return webClient
+                .post()
+                .uri(endpoints.token())
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .body(BodyInserters
+                        .fromFormData("grant_type", "password")
+                        .with("client_id", properties.getClientId())
+                        .with("client_secret", properties.getClientSecret())
+                        .with("username", loginRequest.email())
+                        .with("password", loginRequest.password())
+                )
+                .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.LOGIN)
+                .retrieve()
+                .bodyToMono(TokenRepresentation.class)
+                .map(this::getLoginResponseFromToken)
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Authentication failed. Please verify that 'fractalhive.keycloak.client-id' and " +
+                        "'fractalhive.keycloak.client-secret' are correctly configured. Error: %s"
+                                .formatted(ex.getResponseBodyAsString()),
+                        ex
+                ));
+    }
+
+    /**
+     * Refresh access token using refresh token.
+     */
+    public Mono<LoginResponse> refresh(String refreshToken) {
+        return webClient
+                .post()
+                .uri(endpoints.token())
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .body(BodyInserters
+                        .fromFormData("grant_type", "refresh_token")
+                        .with("client_id", properties.getClientId())
+                        .with("client_secret", properties.getClientSecret())
+                        .with("refresh_token", refreshToken)
+                )
+                .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.REFRESH)
+                .retrieve()
+                .bodyToMono(TokenRepresentation.class)
+                .map(this::getLoginResponseFromToken)
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Token refresh failed. Please verify that 'fractalhive.keycloak.client-id' and " +
+                        "'fractalhive.keycloak.client-secret' are correctly configured. Error: %s"
+                                .formatted(ex.getResponseBodyAsString()),
+                        ex
+                ));
+    }
+
+    /**
+     * Logout a user by invalidating the refresh token.
+     */
+    public Mono<Void> logout(String refreshToken) {
+        return webClient
+                .post()
+                .uri(endpoints.logout())
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .body(BodyInserters
+                        .fromFormData("client_id", properties.getClientId())
+                        .with("client_secret", properties.getClientSecret())
+                        .with("refresh_token", refreshToken)
+                )
+                .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.LOGOUT)
+                .retrieve()
+                .toBodilessEntity()
+                .then()
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Logout failed: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ));
+    }
+
+    /**
+     * Get admin access token for Keycloak admin API calls.
+     */
+    public Mono<String> getAdminAccessToken() {
+        return adminTokenManager.getAccessToken();
+    }
+
+    private LoginResponse getLoginResponseFromToken(TokenRepresentation token) {
+        return new LoginResponse(
+                token.accessToken(),
+                token.refreshToken(),
+                token.expiresIn(),
+                token.refreshExpiresIn()
+        );
+    }
+}
@@ -0,0 +1,131 @@
+package com.fractalhive.keycloak.service;
+
+import com.fractalhive.keycloak.dto.PasswordResetRequest;
+import com.fractalhive.keycloak.exception.KeycloakAuthException;
+import com.fractalhive.keycloak.representation.UserRepresentation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking service for Keycloak password management operations.
+ * <p>
+ * {@link KeycloakPasswordService} is a blocking adapter over this service.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveKeycloakPasswordService {
+
+    private final WebClient webClient;
+    private final KeycloakEndpoints endpoints;
+    private final KeycloakAdminTokenManager adminTokenManager;
+    private final KeycloakUserDirectory userDirectory;
+
+    /**
+     * Request password reset (sends email with reset link).
+     */
+    public Mono<Void> requestPasswordReset(String email) {
+        // Get user ID by email and send password reset email
+        return getUserIdByEmail(email)
+                .flatMap(userId -> adminTokenManager.getAccessToken()
+                        .flatMap(adminToken -> webClient
+                                .put()
+                                .uri(endpoints.executeActionsEmail(userId))
+                                .headers(h -> h.setBearerAuth(adminToken))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .body(BodyInserters.fromValue(new String[]{"UPDATE_PASSWORD"}))
+                                .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.REQUEST_PASSWORD_RESET)
+                                .retrieve()
+                                .toBodilessEntity()))
+                .then()
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Password reset request failed: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ));
+    }
+
+    /**
+     * Reset password with token (from email link).
+     */
+    public Mono<Void> resetPassword(PasswordResetRequest passwordResetRequest) {
+        // Keycloak handles password reset via the token in the email link
+        // This would typically be handled by the frontend redirecting to Keycloak
+        // For API-based reset, we need to use the admin API
+        UserRepresentation.Credential credential = UserRepresentation.Credential.password(passwordResetRequest.newPassword());
+
+        return getUserIdByEmail(passwordResetRequest.email())
+                .flatMap(userId -> adminTokenManager.getAccessToken()
+                        .flatMap(adminToken -> webClient
+                                .put()
+                                .uri(endpoints.resetPassword(userId))
+                                .headers(h -> h.setBearerAuth(adminToken))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .body(BodyInserters.fromValue(credential))
+                                .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.RESET_PASSWORD)
+                                .retrieve()
+                                .toBodilessEntity()))
+                .then()
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Password reset failed: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ));
+    }
+
+    /**
+     * Change password for authenticated user.
+     */
+    public Mono<Void> changePassword(String userId, String newPassword) {
+        UserRepresentation.Credential credential = UserRepresentation.Credential.password(newPassword);
+
+        return adminTokenManager.getAccessToken()
+                .flatMap(adminToken -> webClient
+                        .put()
+                        .uri(endpoints.resetPassword(userId))
+                        .headers(h -> h.setBearerAuth(adminToken))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(BodyInserters.fromValue(credential))
+                        .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.CHANGE_PASSWORD)
+                        .retrieve()
+                        .toBodilessEntity())
+                .then()
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Password change failed: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ));
+    }
+
+    /**
+     * Send verification email to user.
+     */
+    public Mono<Void> sendVerificationEmail(String userId) {
+        return adminTokenManager.getAccessToken()
+                .flatMap(adminToken -> webClient
+                        .put()
+                        .uri(endpoints.sendVerifyEmail(userId))
+                        .headers(h -> h.setBearerAuth(adminToken))
+                        .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.SEND_VERIFICATION_EMAIL)
+                        .retrieve()
+                        .toBodilessEntity())
+                .then()
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Failed to send verification email: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ));
+    }
+
+    private Mono<String> getUserIdByEmail(String email) {
+        // Helper method to get user ID by email, served from the user directory when cached
+        return userDirectory.findByEmail(email)
+                .map(KeycloakUserDirectory.DirectoryUser::id)
+                .switchIfEmpty(Mono.error(() -> new KeycloakAuthException("User not found with email: " + email)))
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Failed to get user ID: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ));
+    }
+}
@@ -0,0 +1,631 @@
+package com.fractalhive.keycloak.service;
+
+import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+import com.fractalhive.keycloak.dto.BulkRoleAssignmentResponse;
+import com.fractalhive.keycloak.dto.EffectiveRolesResponse;
+import com.fractalhive.keycloak.dto.RoleRequest;
+import com.fractalhive.keycloak.dto.RoleResponse;
+import com.fractalhive.keycloak.exception.KeycloakAuthException;
+import com.fractalhive.keycloak.representation.MappingsRepresentation;
+import com.fractalhive.keycloak.representation.RoleRepresentation;
+import com.fractalhive.keycloak.util.SingleFlight;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Non-blocking service for Keycloak role management operations.
+ * <p>
+ * {@link KeycloakRoleService} is a blocking adapter over this service.
+ * </p>
+ * <p>
+ * Role ids needed by role mutations are resolved through {@link KeycloakRoleCatalog}, which this
+ * service invalidates on its own create, update and delete calls.
+ * </p>
+ * <p>
+ * Concurrent reads of the same role share a single Admin API call.
+ * </p>
+ */
+@Service
+public class ReactiveKeycloakRoleService {
+
+    private final WebClient webClient;
+    private final KeycloakAuthProperties properties;
+    private final KeycloakEndpoints endpoints;
+    private final KeycloakAdminTokenManager adminTokenManager;
+    private final KeycloakRoleCatalog roleCatalog;
+
+    private final AsyncCache<String, EffectiveRolesResponse> effectiveRolesCache;
+    private final SingleFlight<String, RoleResponse> roleReads = new SingleFlight<>();
+
+    public ReactiveKeycloakRoleService(
+            WebClient webClient,
+            KeycloakAuthProperties properties,
+            KeycloakEndpoints endpoints,
+            KeycloakAdminTokenManager adminTokenManager,
+            KeycloakRoleCatalog roleCatalog
+    ) {
+        this.webClient = webClient;
+        this.properties = properties;
+        this.endpoints = endpoints;
+        this.adminTokenManager = adminTokenManager;
+        this.roleCatalog = roleCatalog;
+
+        KeycloakAuthProperties.CacheSpec cacheSpec = properties.getCache().getEffectiveRoles();
+        this.effectiveRolesCache = cacheSpec.isEnabled()
+                ? Caffeine.newBuilder()
+                        .maximumSize(cacheSpec.getMaximumSize())
+                        .expireAfterWrite(cacheSpec.getTtl())
+                        .recordStats()
+                        .buildAsync()
+                : null;
+    }
+
+    /**
+     * Cache of effective roles per user, or {@code null} when caching is disabled.
+     */
+    public Cache<String, EffectiveRolesResponse> getEffectiveRolesCache() {
+        return effectiveRolesCache != null ? effectiveRolesCache.synchronous() : null;
+    }
+
+    /**
+     * Create a realm-level role.
+     */
+    public Mono<RoleResponse> createRealmRole(RoleRequest roleRequest) {
+        RoleRepresentation roleRepresentation = RoleRepresentation.of(roleRequest.name(), roleRequest.description());
+
+        return adminTokenManager.getAccessToken()
+                .flatMap(adminToken -> webClient
+                        .post()
+                        .uri(endpoints.realmRoles())
+                        .headers(h -> h.setBearerAuth(adminToken))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(BodyInserters.fromValue(roleRepresentation))
+                        .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.CREATE_ROLE)
+                        .retrieve()
+                        .toBodilessEntity())
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Role creation failed. Please verify that 'fractalhive.keycloak.server-url' and " +
+                        "'fractalhive.keycloak.realm' are correctly configured. Error: %s"
+                                .formatted(ex.getResponseBodyAsString()),
+                        ex
+                ))
+                .transform(invalidating(() -> invalidateRealmRole(roleRequest.name())))
+                .then(Mono.defer(() -> getRole(roleRequest.name())));
+    }
+
+    /**
+     * Create a client-level role.
+     *
+     * @param clientId OAuth client id of the client; its internal id is looked up through the role catalog
+     */
+    public Mono<RoleResponse> createClientRole(String clientId, RoleRequest roleRequest) {
+        RoleRepresentation roleRepresentation = RoleRepresentation.of(roleRequest.name(), roleRequest.description());
+
+        return roleCatalog.findClientUuid(clientId)
+                .flatMap(clientUuid -> adminTokenManager.getAccessToken()
+                        .flatMap(adminToken -> webClient
+                                .post()
+                                .uri(endpoints.clientRoles(clientUuid))
+                                .headers(h -> h.setBearerAuth(adminToken))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .body(BodyInserters.fromValue(roleRepresentation))
+                                .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.CREATE_CLIENT_ROLE)
+                                .retrieve()
+                                .toBodilessEntity()))
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Client role creation failed: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ))
+                .transform(invalidating(() -> invalidateClientRole(clientId, roleRequest.name())))
+                .then(Mono.defer(() -> getClientRole(clientId, roleRequest.name())));
+    }
+
+    /**
+     * Get realm role details.
+     */
+    public Mono<RoleResponse> getRole(String roleName) {
+        return roleReads.execute(realmRoleKey(roleName), key -> fetchRole(roleName));
+    }
+
+    private Mono<RoleResponse> fetchRole(String roleName) {
+        return adminTokenManager.getAccessToken()
+                .flatMap(adminToken -> webClient
+                        .get()
+                        .uri(endpoints.realmRole(roleName))
+                        .headers(h -> h.setBearerAuth(adminToken))
+                        .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.GET_ROLE)
+                        .retrieve()
+                        .bodyToMono(RoleRepresentation.class))
+                .map(this::mapToRoleResponse)
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Failed to get role: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ));
+    }
+
+    /**
+     * List realm roles, optionally filtered by name.
+     * <p>
+     * Pages through {@code /roles} with {@code admin.page-size} roles per request. Roles are emitted as
+     * each page arrives, and the next page is only requested once the previous one was consumed.
+     * </p>
+     *
+     * @param search              substring of the role name to filter on in Keycloak, or {@code null} for all roles
+     * @param briefRepresentation omit role attributes and composites from the result to shrink the payload
+     */
+    public Flux<RoleResponse> listRoles(String search, boolean briefRepresentation) {
+        return AdminPages.fetchAll(properties.getAdmin().getPageSize(), (first, max) -> {
+                    URI uri = endpoints.realmRolesPage(
+                            StringUtils.hasText(search) ? search : null, briefRepresentation, first, max);
+
+                    return adminTokenManager.getAccessToken()
+                            .flatMapMany(adminToken -> webClient
+                                    .get()
+                                    .uri(uri)
+                                    .headers(h -> h.setBearerAuth(adminToken))
+                                    .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.LIST_ROLES)
+                                    .retrieve()
+                                    .bodyToFlux(RoleRepresentation.class));
+                })
+                .map(this::mapToRoleResponse)
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Failed to list roles: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ));
+    }
+
+    /**
+     * Get client role details.
+     *
+     * @param clientId OAuth client id of the client; its internal id is looked up through the role catalog
+     */
+    public Mono<RoleResponse> getClientRole(String clientId, String roleName) {
+        return roleReads.execute(clientRoleKey(clientId, roleName), key -> fetchClientRole(clientId, roleName));
+    }
+
+    private Mono<RoleResponse> fetchClientRole(String clientId, String roleName) {
+        return roleCatalog.findClientUuid(clientId)
+                .flatMap(clientUuid -> adminTokenManager.getAccessToken()
+                        .flatMap(adminToken -> webClient
+                                .get()
+                                .uri(endpoints.clientRole(clientUuid, roleName))
+                                .headers(h -> h.setBearerAuth(adminToken))
+                                .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.GET_CLIENT_ROLE)
+                                .retrieve()
+                                .bodyToMono(RoleRepresentation.class)))
+                .map(this::mapToRoleResponse)
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Failed to get client role: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ));
+    }
+
+    /**
+     * Update a realm role.
+     */
+    public Mono<RoleResponse> updateRole(String roleName, RoleRequest roleRequest) {
+        RoleRepresentation roleRepresentation = RoleRepresentation.of(roleRequest.name(), roleRequest.description());
+
+        return adminTokenManager.getAccessToken()
+                .flatMap(adminToken -> webClient
+                        .put()
+                        .uri(endpoints.realmRole(roleName))
+                        .headers(h -> h.setBearerAuth(adminToken))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(BodyInserters.fromValue(roleRepresentation))
+                        .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.UPDATE_ROLE)
+                        .retrieve()
+                        .toBodilessEntity())
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Role update failed: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ))
+                .transform(invalidating(() -> {
+                    invalidateRealmRole(roleName);
+                    invalidateRealmRole(roleRequest.name());
+                    invalidateAllEffectiveRoles();
+                }))
+                .then(Mono.defer(() -> getRole(roleRequest.name())));
+    }
+
+    /**
+     * Delete a realm role.
+     */
+    public Mono<Void> deleteRole(String roleName) {
+        return adminTokenManager.getAccessToken()
+                .flatMap(adminToken -> webClient
+                        .delete()
+                        .uri(endpoints.realmRole(roleName))
+                        .headers(h -> h.setBearerAuth(adminToken))
+                        .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.DELETE_ROLE)
+                        .retrieve()
+                        .toBodilessEntity())
+                .then()
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Role deletion failed: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ))
+                .transform(invalidating(() -> {
+                    invalidateRealmRole(roleName);
+                    invalidateAllEffectiveRoles();
+                }));
+    }
+
+    /**
+     * Assign role to user.
+     */
+    public Mono<Void> assignRoleToUser(String userId, String roleName, boolean isRealmRole) {
+        return assignRolesToUser(userId, List.of(roleName), isRealmRole);
+    }
+
+    /**
+     * Assign several roles to a user with a single role-mapping call.
+     */
+    public Mono<Void> assignRolesToUser(String userId, Collection<String> roleNames, boolean isRealmRole) {
+        return resolveRoleRepresentations(roleNames, isRealmRole)
+                .flatMap(roles -> postRoleMappings(userId, roles, isRealmRole))
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Failed to assign role to user: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ));
+    }
+
+    /**
+     * Assign the same roles to many users.
+     * <p>
+     * Roles are resolved once, then each user receives a single role-mapping call carrying all roles.
+     * At most {@code admin.bulk-concurrency} calls run at a time. A failure for one user doesn't stop the
+     * others; it is reported in that user's result. Results are in the order of {@code userIds}.
+     * </p>
+     */
+    public Mono<BulkRoleAssignmentResponse> assignRolesToUsers(
+            Collection<String> userIds,
+            Collection<String> roleNames,
+            boolean isRealmRole
+    ) {
+        int concurrency = properties.getAdmin().getBulkConcurrency();
+
+        return resolveRoleRepresentations(roleNames, isRealmRole)
+                .flatMapMany(roles -> Flux.fromIterable(userIds)
+                        .flatMapSequential(userId -> postRoleMappings(userId, roles, isRealmRole)
+                                .thenReturn(BulkRoleAssignmentResponse.UserResult.succeeded(userId))
+                                .onErrorResume(ex -> Mono.just(BulkRoleAssignmentResponse.UserResult.failed(
+                                        userId,
+                                        ex instanceof WebClientResponseException responseException
+                                                ? responseException.getResponseBodyAsString()
+                                                : ex.getMessage()
+                                ))), concurrency))
+                .collectList()
+                .map(BulkRoleAssignmentResponse::of);
+    }
+
+    /**
+     * Remove role from user.
+     */
+    public Mono<Void> removeRoleFromUser(String userId, String roleName, boolean isRealmRole) {
+        return resolveRole(roleName, isRealmRole)
+                .flatMap(role -> {
+                    List<RoleRepresentation> roleRepresentation = List.of(RoleRepresentation.reference(role.id(), role.name()));
+
+                    return userRoleMappingsUri(userId, isRealmRole)
+                            .flatMap(uri -> adminTokenManager.getAccessToken()
+                                    .flatMap(adminToken -> webClient
+                                            .method(HttpMethod.DELETE)
+                                            .uri(uri)
+                                            .headers(h -> h.setBearerAuth(adminToken))
+                                            .contentType(MediaType.APPLICATION_JSON)
+                                            .body(BodyInserters.fromValue(roleRepresentation))
+                                            .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.REMOVE_ROLE)
+                                            .retrieve()
+                                            .toBodilessEntity()));
+                })
+                .then()
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Failed to remove role from user: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ))
+                .transform(invalidating(() -> invalidateEffectiveRoles(userId)));
+    }
+
+    /**
+     * Get all roles for a user.
+     */
+    public Flux<RoleResponse> getUserRoles(String userId) {
+        return adminTokenManager.getAccessToken()
+                .flatMapMany(adminToken -> webClient
+                        .get()
+                        .uri(endpoints.userRealmRoleMappings(userId))
+                        .headers(h -> h.setBearerAuth(adminToken))
+                        .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.GET_USER_ROLES)
+                        .retrieve()
+                        .bodyToFlux(RoleRepresentation.class))
+                .map(this::mapToRoleResponse)
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Failed to get user roles: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ));
+    }
+
+    /**
+     * Get the roles a user effectively holds: realm roles and roles of the configured client, expanded
+     * through composite roles, plus the direct realm and client role mappings.
+     * <p>
+     * The direct mappings and both composite views are fetched in parallel. Results are cached per user
+     * ({@code fractalhive.keycloak.cache.effective-roles.*}); the cache is invalidated when this service
+     * changes a user's role mappings or changes a role, and concurrent requests for the same user share
+     * a single fetch.
+     * </p>
+     */
+    public Mono<EffectiveRolesResponse> getEffectiveRoles(String userId) {
+        Mono<EffectiveRolesResponse> effectiveRoles = effectiveRolesCache != null
+                ? Mono.fromFuture(() -> effectiveRolesCache.get(userId, (key, executor) -> fetchEffectiveRoles(key).toFuture()), true)
+                : fetchEffectiveRoles(userId);
+
+        return effectiveRoles
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Failed to get effective user roles: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ));
+    }
+
+    /**
+     * Create a composite role (role with sub-roles).
+     * <p>
+     * Sub-roles are resolved through the role catalog.
+     * </p>
+     */
+    public Mono<RoleResponse> createCompositeRole(String roleName, List<String> subRoleNames) {
+        // First create the role, then resolve the sub-roles
+        Mono<List<RoleRepresentation>> subRoles = createRealmRole(new RoleRequest(roleName, null))
+                .thenMany(Flux.fromIterable(subRoleNames).flatMapSequential(roleCatalog::findRealmRole))
+                .map(role -> RoleRepresentation.reference(role.id(), role.name()))
+                .collectList();
+
+        // Make it composite
+        return subRoles
+                .flatMap(roles -> adminTokenManager.getAccessToken()
+                        .flatMap(adminToken -> webClient
+                                .post()
+                                .uri(endpoints.realmRoleComposites(roleName))
+                                .headers(h -> h.setBearerAuth(adminToken))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .body(BodyInserters.fromValue(roles))
+                                .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.ADD_COMPOSITES)
+                                .retrieve()
+                                .toBodilessEntity()))
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Failed to create composite role: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ))
+                .transform(invalidating(() -> invalidateRealmRole(roleName)))
+                .then(Mono.defer(() -> getRole(roleName)));
+    }
+
+    /**
+     * Add sub-role to composite role.
+     */
+    public Mono<Void> addSubRole(String compositeRoleName, String subRoleName) {
+        return roleCatalog.findRealmRole(subRoleName)
+                .flatMap(subRole -> {
+                    List<RoleRepresentation> roleRepresentation = List.of(RoleRepresentation.reference(subRole.id(), subRole.name()));
+
+                    return adminTokenManager.getAccessToken()
+                            .flatMap(adminToken -> webClient
+                                    .post()
+                                    .uri(endpoints.realmRoleComposites(compositeRoleName))
+                                    .headers(h -> h.setBearerAuth(adminToken))
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .body(BodyInserters.fromValue(roleRepresentation))
+                                    .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.ADD_COMPOSITES)
+                                    .retrieve()
+                                    .toBodilessEntity());
+                })
+                .then()
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Failed to add sub-role: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ))
+                .transform(invalidating(() -> {
+                    invalidateRealmRole(compositeRoleName);
+                    invalidateAllEffectiveRoles();
+                }));
+    }
+
+    /**
+     * Remove sub-role from composite role.
+     */
+    public Mono<Void> removeSubRole(String compositeRoleName, String subRoleName) {
+        return roleCatalog.findRealmRole(subRoleName)
+                .flatMap(subRole -> {
+                    List<RoleRepresentation> roleRepresentation = List.of(RoleRepresentation.reference(subRole.id(), subRole.name()));
+
+                    return adminTokenManager.getAccessToken()
+                            .flatMap(adminToken -> webClient
+                                    .method(HttpMethod.DELETE)
+                                    .uri(endpoints.realmRoleComposites(compositeRoleName))
+                                    .headers(h -> h.setBearerAuth(adminToken))
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .body(BodyInserters.fromValue(roleRepresentation))
+                                    .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.REMOVE_COMPOSITES)
+                                    .retrieve()
+                                    .toBodilessEntity());
+                })
+                .then()
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Failed to remove sub-role: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ))
+                .transform(invalidating(() -> {
+                    invalidateRealmRole(compositeRoleName);
+                    invalidateAllEffectiveRoles();
+                }));
+    }
+
+    private Mono<List<RoleRepresentation>> resolveRoleRepresentations(Collection<String> roleNames, boolean isRealmRole) {
+        return Flux.fromIterable(roleNames)
+                .flatMapSequential(roleName -> resolveRole(roleName, isRealmRole))
+                .map(role -> RoleRepresentation.reference(role.id(), role.name()))
+                .collectList();
+    }
+
+    private Mono<Void> postRoleMappings(String userId, List<RoleRepresentation> roles, boolean isRealmRole) {
+        return userRoleMappingsUri(userId, isRealmRole)
+                .flatMap(uri -> adminTokenManager.getAccessToken()
+                        .flatMap(adminToken -> webClient
+                                .post()
+                                .uri(uri)
+                                .headers(h -> h.setBearerAuth(adminToken))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .body(BodyInserters.fromValue(roles))
+                                .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.ASSIGN_ROLE)
+                                .retrieve()
+                                .toBodilessEntity()))
+                .then()
+                .transform(invalidating(() -> invalidateEffectiveRoles(userId)));
+    }
+
+    private Mono<EffectiveRolesResponse> fetchEffectiveRoles(String userId) {
+        Mono<MappingsRepresentation> mappings = getAdmin(KeycloakOperation.GET_EFFECTIVE_ROLES,
+                MappingsRepresentation.class, endpoints.userRoleMappings(userId))
+                .next();
+        Mono<Set<String>> realmRoles = getAdmin(KeycloakOperation.GET_EFFECTIVE_ROLES,
+                RoleRepresentation.class, endpoints.userRealmCompositeRoles(userId))
+                .<Set<String>>collect(TreeSet::new, (names, role) -> names.add(role.name()));
+        // The composite endpoint takes the client's internal id, not its OAuth client id
+        Mono<Set<String>> clientRoles = roleCatalog.findClientUuid(properties.getClientId())
+                .flatMapMany(clientUuid -> getAdmin(KeycloakOperation.GET_EFFECTIVE_ROLES,
+                        RoleRepresentation.class, endpoints.userClientCompositeRoles(userId, clientUuid)))
+                .<Set<String>>collect(TreeSet::new, (names, role) -> names.add(role.name()));
+
+        return Mono.zip(mappings.defaultIfEmpty(new MappingsRepresentation(null, null)), realmRoles, clientRoles)
+                .map(views -> new EffectiveRolesResponse(
+                        userId,
+                        views.getT2(),
+                        views.getT3(),
+                        roleNames(views.getT1().realmMappings()),
+                        directClientRoles(views.getT1().clientMappings())
+                ));
+    }
+
+    /**
+     * GET an Admin API resource; JSON arrays are decoded element by element.
+     */
+    private <T> Flux<T> getAdmin(KeycloakOperation operation, Class<T> type, URI uri) {
+        return adminTokenManager.getAccessToken()
+                .flatMapMany(adminToken -> webClient
+                        .get()
+                        .uri(uri)
+                        .headers(h -> h.setBearerAuth(adminToken))
+                        .attribute(KeycloakOperation.ATTRIBUTE, operation)
+                        .retrieve()
+                        .bodyToFlux(type));
+    }
+
+    private Map<String, Set<String>> directClientRoles(Map<String, MappingsRepresentation.ClientMappings> clientMappings) {
+        if (clientMappings == null) {
+            return Map.of();
+        }
+
+        Map<String, Set<String>> rolesByClient = new TreeMap<>();
+        for (MappingsRepresentation.ClientMappings client : clientMappings.values()) {
+            rolesByClient.put(client.client(), roleNames(client.mappings()));
+        }
+        return rolesByClient;
+    }
+
+    private Set<String> roleNames(List<RoleRepresentation> roles) {
+        Set<String> names = new TreeSet<>();
+        if (roles != null) {
+            for (RoleRepresentation role : roles) {
+                names.add(role.name());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Run a cache invalidation when a mutation completes, fails or is cancelled. It runs before the terminal
+     * signal is passed on, so a read chained after the mutation, or made by a caller that blocked on it,
+     * never sees the pre-mutation entry.
+     */
+    private static <T> Function<Mono<T>, Mono<T>> invalidating(Runnable invalidation) {
+        return mutation -> mutation
+                .doOnTerminate(invalidation)
+                .doOnCancel(invalidation);
+    }
+
+    private void invalidateRealmRole(String roleName) {
+        roleCatalog.invalidateRealmRole(roleName);
+        roleReads.forget(realmRoleKey(roleName));
+    }
+
+    private void invalidateClientRole(String clientId, String roleName) {
+        roleCatalog.invalidateClientRole(clientId, roleName);
+        roleReads.forget(clientRoleKey(clientId, roleName));
+    }
+
+    private static String realmRoleKey(String roleName) {
+        return "realm/" + roleName;
+    }
+
+    private static String clientRoleKey(String clientId, String roleName) {
+        return "client/" + clientId + "/" + roleName;
+    }
+
+    private void invalidateEffectiveRoles(String userId) {
+        if (effectiveRolesCache != null) {
+            effectiveRolesCache.synchronous().invalidate(userId);
+        }
+    }
+
+    private void invalidateAllEffectiveRoles() {
+        if (effectiveRolesCache != null) {
+            effectiveRolesCache.synchronous().invalidateAll();
+        }
+    }
+
+    private Mono<KeycloakRoleCatalog.CatalogRole> resolveRole(String roleName, boolean isRealmRole) {
+        return isRealmRole
+                ? roleCatalog.findRealmRole(roleName)
+                : roleCatalog.findClientRole(properties.getClientId(), roleName);
+    }
+
+    /**
+     * Role mapping path of a user; client role mappings are addressed by the client's internal id.
+     */
+    private Mono<URI> userRoleMappingsUri(String userId, boolean isRealmRole) {
+        return isRealmRole
+                ? Mono.just(endpoints.userRealmRoleMappings(userId))
+                : roleCatalog.findClientUuid(properties.getClientId())
+                        .map(clientUuid -> endpoints.userClientRoleMappings(userId, clientUuid));
+    }
+
+    private RoleResponse mapToRoleResponse(RoleRepresentation role) {
+        return new RoleResponse(
+                role.id() != null ? role.id() : "",
+                role.name() != null ? role.name() : "",
+                role.description() != null ? role.description() : "",
+                Boolean.TRUE.equals(role.composite()),
+                role.compositeNames()
+        );
+    }
+}
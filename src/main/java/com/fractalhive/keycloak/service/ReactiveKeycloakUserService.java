@@ -0,0 +1,263 @@
+package com.fractalhive.keycloak.service;
+
+import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+import com.fractalhive.keycloak.dto.RegisterRequest;
+import com.fractalhive.keycloak.dto.RegisterResponse;
+import com.fractalhive.keycloak.dto.UserImportResult;
+import com.fractalhive.keycloak.dto.UserInfoResponse;
+import com.fractalhive.keycloak.exception.KeycloakAuthException;
+import com.fractalhive.keycloak.representation.UserRepresentation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Non-blocking service for Keycloak user management operations.
+ * <p>
+ * {@link KeycloakUserService} is a blocking adapter over this service.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveKeycloakUserService {
+
+    private final WebClient webClient;
+    private final KeycloakAuthProperties properties;
+    private final KeycloakEndpoints endpoints;
+    private final KeycloakAdminTokenManager adminTokenManager;
+    private final ReactiveKeycloakRoleService roleService;
+    private final KeycloakUserDirectory userDirectory;
+
+    /**
+     * Register a new user in Keycloak.
+     */
+    public Mono<RegisterResponse> register(RegisterRequest registerRequest) {
+        return createUser(registerRequest)
+                .map(userId -> new RegisterResponse(
+                        userId,
+                        registerRequest.email(),
+                        "User registered successfully"
+                ))
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "User registration failed. Please verify that 'fractalhive.keycloak.server-url' and " +
+                        "'fractalhive.keycloak.realm' are correctly configured. Error: %s"
+                                .formatted(ex.getResponseBodyAsString()),
+                        ex
+                ));
+    }
+
+    /**
+     * Import users as they are emitted by {@code users}.
+     * <p>
+     * At most {@code admin.bulk-concurrency} users are in flight, and further users are only requested
+     * from {@code users} as earlier ones complete. Calls failing with a 5xx or 429 response or a connection
+     * error are retried up to {@code admin.max-retries} times with exponential backoff, except calls the
+     * resilience layer already retries. A user that already exists is reported as
+     * {@link UserImportResult.Status#EXISTING}, so re-running an import is safe.
+     * </p>
+     * <p>
+     * When {@code roleNames} is not empty, the roles are assigned to every created or existing user with a
+     * single role-mapping call. Users the sink reports as completed are skipped without calling Keycloak,
+     * and every other result is recorded in the sink before it is emitted.
+     * </p>
+     */
+    public Flux<UserImportResult> importUsers(
+            Flux<RegisterRequest> users,
+            Collection<String> roleNames,
+            boolean isRealmRole,
+            UserImportSink sink
+    ) {
+        int concurrency = properties.getAdmin().getBulkConcurrency();
+
+        return users
+                .flatMapSequential(user -> sink.isCompleted(user.email())
+                        ? Mono.just(UserImportResult.skipped(user.email()))
+                        : importUser(user, roleNames, isRealmRole), concurrency)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(result -> {
+                    if (result.status() != UserImportResult.Status.SKIPPED) {
+                        sink.record(result);
+                    }
+                });
+    }
+
+    /**
+     * Update user details.
+     */
+    public Mono<Void> updateUser(String userId, Map<String, Object> userUpdates) {
+        return adminTokenManager.getAccessToken()
+                .flatMap(adminToken -> webClient
+                        .put()
+                        .uri(endpoints.user(userId))
+                        .headers(h -> h.setBearerAuth(adminToken))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(BodyInserters.fromValue(userUpdates))
+                        .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.UPDATE_USER)
+                        .retrieve()
+                        .toBodilessEntity())
+                .then()
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "User update failed: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ))
+                .doOnTerminate(() -> userDirectory.evict(userId))
+                .doOnCancel(() -> userDirectory.evict(userId));
+    }
+
+    /**
+     * Get user by ID.
+     */
+    public Mono<UserInfoResponse> getUserById(String userId) {
+        return userDirectory.findById(userId)
+                .map(user -> new UserInfoResponse(
+                        user.email(),
+                        user.fullName(),
+                        "UNKNOWN" // roles intentionally skipped
+                ))
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Failed to get user: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ));
+    }
+
+    /**
+     * Get user by email.
+     */
+    public Mono<UserInfoResponse> getUserByEmail(String email) {
+        return userDirectory.findByEmail(email)
+                .switchIfEmpty(Mono.error(() -> new KeycloakAuthException("User not found with email: " + email)))
+                .map(user -> new UserInfoResponse(
+                        email,
+                        user.fullName(),
+                        "UNKNOWN"
+                ))
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "Failed to get user by email: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ));
+    }
+
+    /**
+     * Delete a user.
+     */
+    public Mono<Void> deleteUser(String userId) {
+        return adminTokenManager.getAccessToken()
+                .flatMap(adminToken -> webClient
+                        .delete()
+                        .uri(endpoints.user(userId))
+                        .headers(h -> h.setBearerAuth(adminToken))
+                        .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.DELETE_USER)
+                        .retrieve()
+                        .toBodilessEntity())
+                .then()
+                .onErrorMap(WebClientResponseException.class, ex -> new KeycloakAuthException(
+                        "User deletion failed: %s".formatted(ex.getResponseBodyAsString()),
+                        ex
+                ))
+                .doOnTerminate(() -> userDirectory.evict(userId))
+                .doOnCancel(() -> userDirectory.evict(userId));
+    }
+
+    private Mono<UserImportResult> importUser(RegisterRequest user, Collection<String> roleNames, boolean isRealmRole) {
+        Mono<UserImportResult> created = withImportRetry(createUser(user), KeycloakOperation.REGISTER)
+                .map(userId -> UserImportResult.created(user.email(), userId))
+                .onErrorResume(
+                        ex -> ex instanceof WebClientResponseException responseException
+                                && responseException.getStatusCode().isSameCodeAs(HttpStatus.CONFLICT),
+                        ex -> withImportRetry(findUserIdByEmail(user.email()), KeycloakOperation.FIND_USER_BY_EMAIL)
+                                .map(userId -> UserImportResult.existing(user.email(), userId))
+                );
+
+        return created
+                .flatMap(result -> roleNames.isEmpty()
+                        ? Mono.just(result)
+                        : withImportRetry(
+                                roleService.assignRolesToUser(result.userId(), roleNames, isRealmRole),
+                                KeycloakOperation.ASSIGN_ROLE)
+                                .thenReturn(result)
+                                .onErrorResume(ex -> Mono.just(
+                                        UserImportResult.failed(user.email(), result.userId(), describeError(ex)))))
+                .onErrorResume(ex -> Mono.just(UserImportResult.failed(user.email(), null, describeError(ex))));
+    }
+
+    /**
+     * Retry {@code call} after transient failures, unless the resilience layer already retries the
+     * operation; a call is never retried by both.
+     */
+    private <T> Mono<T> withImportRetry(Mono<T> call, KeycloakOperation operation) {
+        if (properties.getResilience().isEnabled() && operation.isIdempotent()) {
+            return call;
+        }
+
+        KeycloakAuthProperties.Admin admin = properties.getAdmin();
+        return call.retryWhen(Retry.backoff(admin.getMaxRetries(), admin.getRetryBackoff())
+                .filter(ReactiveKeycloakUserService::isRetryable)
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    private static boolean isRetryable(Throwable ex) {
+        if (ex instanceof KeycloakAuthException && ex.getCause() != null) {
+            ex = ex.getCause();
+        }
+        if (ex instanceof WebClientResponseException responseException) {
+            return responseException.getStatusCode().is5xxServerError()
+                    || responseException.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS);
+        }
+        return ex instanceof WebClientRequestException || ex instanceof TimeoutException;
+    }
+
+    private static String describeError(Throwable ex) {
+        return ex instanceof WebClientResponseException responseException
+                ? "%s: %s".formatted(responseException.getStatusCode(), responseException.getResponseBodyAsString())
+                : ex.getMessage();
+    }
+
+    private Mono<String> createUser(RegisterRequest registerRequest) {
+        UserRepresentation userRepresentation = UserRepresentation.newUser(
+                registerRequest.email(),
+                registerRequest.firstName(),
+                registerRequest.lastName(),
+                registerRequest.password()
+        );
+
+        return adminTokenManager.getAccessToken()
+                .flatMap(adminToken -> webClient
+                        .post()
+                        .uri(endpoints.users())
+                        .headers(h -> h.setBearerAuth(adminToken))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(BodyInserters.fromValue(userRepresentation))
+                        .attribute(KeycloakOperation.ATTRIBUTE, KeycloakOperation.REGISTER)
+                        .retrieve()
+                        .toBodilessEntity())
+                .map(entity -> {
+                    String location = entity.getHeaders().getLocation().toString();
+                    return location.substring(location.lastIndexOf('/') + 1);
+                })
+                .doOnNext(userId -> userDirectory.put(new KeycloakUserDirectory.DirectoryUser(
+                        userId,
+                        registerRequest.email(),
+                        registerRequest.firstName(),
+                        registerRequest.lastName()
+                )));
+    }
+
+    private Mono<String> findUserIdByEmail(String email) {
+        return userDirectory.findByEmail(email)
+                .map(KeycloakUserDirectory.DirectoryUser::id)
+                .switchIfEmpty(Mono.error(() -> new KeycloakAuthException("User not found with email: " + email)));
+    }
+}
@@ -0,0 +1,40 @@
+package com.fractalhive.keycloak.service;
+
+import com.fractalhive.keycloak.dto.UserImportResult;
+
+/**
+ * Receives the outcome of every imported user and tells a resumed import which users are already done.
+ * <p>
+ * Results are delivered one at a time, off the HTTP client's threads, so {@link #record} may block on I/O.
+ * {@link #isCompleted} is called from the thread reading the users, concurrently with {@link #record},
+ * so implementations must be thread-safe.
+ * </p>
+ *
+ * @see NdjsonFileUserImportSink
+ */
+public interface UserImportSink {
+
+    /**
+     * Sink that records nothing, so every user is imported.
+     */
+    UserImportSink NONE = new UserImportSink() {
+        @Override
+        public boolean isCompleted(String email) {
+            return false;
+        }
+
+        @Override
+        public void record(UserImportResult result) {
+        }
+    };
+
+    /**
+     * Whether an earlier run already completed the user with this email.
+     */
+    boolean isCompleted(String email);
+
+    /**
+     * Record the outcome for a single user.
+     */
+    void record(UserImportResult result);
+}
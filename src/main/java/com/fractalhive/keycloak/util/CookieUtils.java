@@ -0,0 +1,101 @@
+package com.fractalhive.keycloak.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+
+import java.util.Enumeration;
+
+/**
+ * Utility class for reading cookies straight from the raw {@code Cookie} header.
+ * <p>
+ * Unlike {@link HttpServletRequest#getCookies()}, this does not make the container parse and allocate
+ * every cookie on the request: the header is scanned in place and only the requested value is copied.
+ * </p>
+ * <p>
+ * HTTP/2 clients may split cookies across several {@code Cookie} headers (RFC 9113, section 8.2.3), so
+ * every {@code Cookie} header of the request is scanned.
+ * </p>
+ */
+public final class CookieUtils {
+
+    private CookieUtils() {
+    }
+
+    /**
+     * Get the value of a cookie from the request's {@code Cookie} headers.
+     *
+     * @return the cookie value, or {@code null} if the cookie is absent or empty
+     */
+    public static String getCookieValue(HttpServletRequest request, String name) {
+        Enumeration<String> cookieHeaders = request.getHeaders(HttpHeaders.COOKIE);
+        if (cookieHeaders == null) {
+            return null;
+        }
+
+        while (cookieHeaders.hasMoreElements()) {
+            String value = getCookieValue(cookieHeaders.nextElement(), name);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the value of a cookie from a raw {@code Cookie} header value such as {@code a=1; b=2}.
+     *
+     * @return the cookie value without surrounding quotes, or {@code null} if the cookie is absent or empty
+     */
+    public static String getCookieValue(String cookieHeader, String name) {
+        if (cookieHeader == null) {
+            return null;
+        }
+
+        int length = cookieHeader.length();
+        int nameLength = name.length();
+        int position = 0;
+
+        while (position < length) {
+            while (position < length && isSeparator(cookieHeader.charAt(position))) {
+                position++;
+            }
+
+            int end = cookieHeader.indexOf(';', position);
+            if (end < 0) {
+                end = length;
+            }
+
+            int equals = position + nameLength;
+            if (equals < end
+                    && cookieHeader.charAt(equals) == '='
+                    && cookieHeader.startsWith(name, position)) {
+                return extractValue(cookieHeader, equals + 1, end);
+            }
+
+            position = end + 1;
+        }
+
+        return null;
+    }
+
+    private static String extractValue(String cookieHeader, int start, int end) {
+        while (end > start && isWhitespace(cookieHeader.charAt(end - 1))) {
+            end--;
+        }
+
+        if (end - start >= 2 && cookieHeader.charAt(start) == '"' && cookieHeader.charAt(end - 1) == '"') {
+            start++;
+            end--;
+        }
+
+        return start < end ? cookieHeader.substring(start, end) : null;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == ';' || isWhitespace(c);
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t';
+    }
+}
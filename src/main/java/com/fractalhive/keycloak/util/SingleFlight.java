@@ -0,0 +1,67 @@
+package com.fractalhive.keycloak.util;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent loads of the same key into a single call.
+ * <p>
+ * The first subscriber for a key starts the load; subscribers arriving while it is in flight share its
+ * result, value, empty completion or error alike. Once the load terminates the key is released, so the next
+ * subscriber starts a fresh load: nothing is cached beyond the call itself. A load keeps running when the
+ * subscribers sharing it cancel.
+ * </p>
+ * <p>
+ * Call {@link #forget(Object)} after changing the loaded resource, so that reads starting afterwards
+ * do not join a load that may have read the old state.
+ * </p>
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public final class SingleFlight<K, V> {
+
+    private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Load {@code key} with {@code loader}, or join the load of {@code key} already in flight.
+     */
+    public Mono<V> execute(K key, Function<? super K, ? extends Mono<V>> loader) {
+        return Mono.defer(() -> inFlight.computeIfAbsent(key, k -> share(k, loader)));
+    }
+
+    /**
+     * Stop handing out the load of {@code key} in flight, if any; subscribers already sharing it still
+     * receive its result.
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    /**
+     * Stop handing out every load in flight.
+     */
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    /**
+     * Number of loads currently in flight.
+     */
+    public int size() {
+        return inFlight.size();
+    }
+
+    private Mono<V> share(K key, Function<? super K, ? extends Mono<V>> loader) {
+        AtomicReference<Mono<V>> self = new AtomicReference<>();
+        Mono<V> shared = Mono.defer(() -> loader.apply(key))
+                .doFinally(signal -> inFlight.remove(key, self.get()))
+                .cache();
+        self.set(shared);
+        return shared;
+    }
+}
@@ -0,0 +1,35 @@
+package com.fractalhive.keycloak.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Utility class for deriving cache keys from bearer tokens.
+ * <p>
+ * Caches keyed by a token's digest instead of the token itself don't keep usable credentials in memory:
+ * a heap dump or cache listing reveals which entries exist, but not the tokens that produce them.
+ * </p>
+ */
+public final class TokenDigests {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private TokenDigests() {
+    }
+
+    /**
+     * SHA-256 digest of a token, Base64url-encoded without padding.
+     */
+    public static String sha256(String token) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+        return ENCODER.encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,150 @@
+package com.fractalhive.keycloak.config;
+
+import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeycloakCircuitBreakerTest {
+
+    @Test
+    void staysClosedBelowMinimumCalls() {
+        KeycloakCircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+
+        fail(breaker, 3);
+
+        assertThat(breaker.getState()).isEqualTo(KeycloakCircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void opensAtFailureRateThresholdAndRejectsCalls() {
+        KeycloakCircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+
+        succeed(breaker, 2);
+        fail(breaker, 2);
+
+        assertThat(breaker.getState()).isEqualTo(KeycloakCircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void slidingWindowForgetsOldFailures() {
+        KeycloakCircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+
+        fail(breaker, 1);
+        succeed(breaker, 3);
+        // The first failure drops out of the window of four calls, so it takes two new ones to reach 50%
+        fail(breaker, 1);
+
+        assertThat(breaker.getState()).isEqualTo(KeycloakCircuitBreaker.State.CLOSED);
+
+        fail(breaker, 1);
+
+        assertThat(breaker.getState()).isEqualTo(KeycloakCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void halfOpensAfterOpenDurationAndLimitsTrialCalls() {
+        KeycloakCircuitBreaker breaker = breaker(Duration.ZERO);
+        fail(breaker, 4);
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(KeycloakCircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void closesWhenAllTrialCallsSucceed() {
+        KeycloakCircuitBreaker breaker = breaker(Duration.ZERO);
+        fail(breaker, 4);
+
+        succeed(breaker, 2);
+
+        assertThat(breaker.getState()).isEqualTo(KeycloakCircuitBreaker.State.CLOSED);
+        // The window starts over, so a single failure does not reopen the circuit
+        fail(breaker, 1);
+        assertThat(breaker.getState()).isEqualTo(KeycloakCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void reopensWhenATrialCallFails() {
+        KeycloakCircuitBreaker breaker = breaker(Duration.ofMillis(200));
+        fail(breaker, 4);
+        await(Duration.ofMillis(250));
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(KeycloakCircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void ignoredTrialCallReturnsItsPermit() {
+        KeycloakCircuitBreaker breaker = breaker(Duration.ZERO);
+        fail(breaker, 4);
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        breaker.onIgnored();
+
+        assertThat(breaker.getState()).isEqualTo(KeycloakCircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void disabledBreakerPermitsEverything() {
+        KeycloakAuthProperties.CircuitBreaker properties = properties(Duration.ofMinutes(1));
+        properties.setEnabled(false);
+        KeycloakCircuitBreaker breaker = new KeycloakCircuitBreaker(properties);
+
+        fail(breaker, 10);
+
+        assertThat(breaker.getState()).isEqualTo(KeycloakCircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    private static KeycloakCircuitBreaker breaker(Duration openDuration) {
+        return new KeycloakCircuitBreaker(properties(openDuration));
+    }
+
+    private static KeycloakAuthProperties.CircuitBreaker properties(Duration openDuration) {
+        KeycloakAuthProperties.CircuitBreaker properties = new KeycloakAuthProperties.CircuitBreaker();
+        properties.setFailureRateThreshold(50);
+        properties.setSlidingWindowSize(4);
+        properties.setMinimumCalls(4);
+        properties.setOpenDuration(openDuration);
+        properties.setHalfOpenCalls(2);
+        return properties;
+    }
+
+    private static void succeed(KeycloakCircuitBreaker breaker, int calls) {
+        for (int i = 0; i < calls; i++) {
+            assertThat(breaker.tryAcquire()).isTrue();
+            breaker.onSuccess();
+        }
+    }
+
+    private static void fail(KeycloakCircuitBreaker breaker, int calls) {
+        for (int i = 0; i < calls; i++) {
+            breaker.tryAcquire();
+            breaker.onFailure();
+        }
+    }
+
+    private static void await(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+}
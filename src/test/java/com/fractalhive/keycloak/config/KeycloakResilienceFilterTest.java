@@ -0,0 +1,120 @@
+package com.fractalhive.keycloak.config;
+
+import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+import com.fractalhive.keycloak.exception.KeycloakUnavailableException;
+import com.fractalhive.keycloak.service.KeycloakOperation;
+import com.fractalhive.keycloak.service.KeycloakOperation.Traffic;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeycloakResilienceFilterTest {
+
+    private static final ExchangeFunction HANGING = request -> Mono.never();
+
+    @Test
+    void fullBulkheadRejectsCalls() {
+        KeycloakResilienceFilter filter = filter(1);
+
+        Disposable first = filter.filter(request(KeycloakOperation.GET_USER), HANGING).subscribe();
+        try {
+            StepVerifier.create(filter.filter(request(KeycloakOperation.GET_USER), HANGING))
+                    .expectError(KeycloakUnavailableException.class)
+                    .verify(Duration.ofSeconds(5));
+            assertThat(filter.getActiveCalls(Traffic.ADMIN)).isEqualTo(1);
+        } finally {
+            first.dispose();
+        }
+    }
+
+    @Test
+    void cancelledCallReleasesItsSlot() {
+        KeycloakResilienceFilter filter = filter(1);
+
+        Disposable call = filter.filter(request(KeycloakOperation.GET_USER), HANGING).subscribe();
+        assertThat(filter.getActiveCalls(Traffic.ADMIN)).isEqualTo(1);
+
+        call.dispose();
+
+        assertThat(filter.getActiveCalls(Traffic.ADMIN)).isZero();
+        assertThat(filter.getCircuitBreakerState(Traffic.ADMIN)).isEqualTo("CLOSED");
+        StepVerifier.create(filter.filter(request(KeycloakOperation.GET_USER), ok()))
+                .expectNextMatches(response -> response.statusCode().is2xxSuccessful())
+                .verifyComplete();
+        assertThat(filter.getActiveCalls(Traffic.ADMIN)).isZero();
+    }
+
+    @Test
+    void completedAndFailedCallsReleaseTheirSlots() {
+        KeycloakResilienceFilter filter = filter(1);
+
+        StepVerifier.create(filter.filter(request(KeycloakOperation.GET_USER), ok()))
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(filter.filter(request(KeycloakOperation.REGISTER),
+                        request -> Mono.error(new IllegalStateException("boom"))))
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(5));
+
+        assertThat(filter.getActiveCalls(Traffic.ADMIN)).isZero();
+    }
+
+    @Test
+    void trafficClassesHaveSeparateBulkheads() {
+        KeycloakResilienceFilter filter = filter(1);
+
+        Disposable admin = filter.filter(request(KeycloakOperation.GET_USER), HANGING).subscribe();
+        try {
+            StepVerifier.create(filter.filter(request(KeycloakOperation.LOGIN), ok()))
+                    .expectNextCount(1)
+                    .verifyComplete();
+        } finally {
+            admin.dispose();
+        }
+    }
+
+    @Test
+    void idempotentCallIsRetriedOnTransientStatus() {
+        KeycloakResilienceFilter filter = filter(1);
+        AtomicInteger attempts = new AtomicInteger();
+        ExchangeFunction flaky = request -> Mono.just(ClientResponse.create(
+                attempts.incrementAndGet() == 1 ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.OK).build());
+
+        StepVerifier.create(filter.filter(request(KeycloakOperation.GET_USER), flaky))
+                .expectNextMatches(response -> response.statusCode().is2xxSuccessful())
+                .verifyComplete();
+
+        assertThat(attempts).hasValue(2);
+        assertThat(filter.getActiveCalls(Traffic.ADMIN)).isZero();
+    }
+
+    private static KeycloakResilienceFilter filter(int maxConcurrentCalls) {
+        KeycloakAuthProperties.Resilience properties = new KeycloakAuthProperties.Resilience();
+        properties.getBulkhead().setUserMaxConcurrentCalls(maxConcurrentCalls);
+        properties.getBulkhead().setAdminMaxConcurrentCalls(maxConcurrentCalls);
+        properties.getRetry().setInitialBackoff(Duration.ofMillis(1));
+        return new KeycloakResilienceFilter(properties);
+    }
+
+    private static ClientRequest request(KeycloakOperation operation) {
+        return ClientRequest.create(HttpMethod.GET, URI.create("http://keycloak.test/"))
+                .attribute(KeycloakOperation.ATTRIBUTE, operation)
+                .build();
+    }
+
+    private static ExchangeFunction ok() {
+        return request -> Mono.just(ClientResponse.create(HttpStatus.OK).build());
+    }
+}
@@ -0,0 +1,193 @@
+package com.fractalhive.keycloak.service;
+
+import com.fractalhive.keycloak.autoconfigure.KeycloakAuthProperties;
+import com.fractalhive.keycloak.exception.KeycloakAuthException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeycloakAdminTokenManagerTest {
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private VirtualTimeScheduler scheduler;
+    private KeycloakAdminTokenManager tokenManager;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = VirtualTimeScheduler.getOrSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (tokenManager != null) {
+            tokenManager.destroy();
+        }
+        VirtualTimeScheduler.reset();
+    }
+
+    @Test
+    void concurrentCallersShareOneTokenRequest() {
+        Sinks.One<ClientResponse> response = Sinks.one();
+        tokenManager = tokenManager(request -> {
+            requests.incrementAndGet();
+            return response.asMono();
+        });
+
+        StepVerifier first = StepVerifier.create(tokenManager.getAccessToken())
+                .expectNext("token-1")
+                .expectComplete()
+                .verifyLater();
+        StepVerifier second = StepVerifier.create(tokenManager.getAccessToken())
+                .expectNext("token-1")
+                .expectComplete()
+                .verifyLater();
+
+        response.tryEmitValue(token("token-1", 300));
+
+        first.verify(Duration.ofSeconds(5));
+        second.verify(Duration.ofSeconds(5));
+        assertThat(requests).hasValue(1);
+    }
+
+    @Test
+    void cachedTokenIsServedWithoutCallingKeycloak() {
+        tokenManager = tokenManager(countingTokens(300));
+
+        StepVerifier.create(tokenManager.getAccessToken()).expectNext("token-1").verifyComplete();
+        StepVerifier.create(tokenManager.getAccessToken()).expectNext("token-1").verifyComplete();
+
+        assertThat(requests).hasValue(1);
+        assertThat(tokenManager.getRemainingLifetime()).isPositive();
+    }
+
+    @Test
+    void tokenIsRefreshedInBackgroundAfterRefreshRatio() {
+        tokenManager = tokenManager(countingTokens(300));
+
+        StepVerifier.create(tokenManager.getAccessToken()).expectNext("token-1").verifyComplete();
+
+        // token-refresh-ratio 0.75 of 300 seconds
+        scheduler.advanceTimeBy(Duration.ofSeconds(224));
+        assertThat(requests).hasValue(1);
+
+        scheduler.advanceTimeBy(Duration.ofSeconds(2));
+        assertThat(requests).hasValue(2);
+        StepVerifier.create(tokenManager.getAccessToken()).expectNext("token-2").verifyComplete();
+    }
+
+    @Test
+    void failedRequestIsRetriedWithExponentialBackoff() {
+        tokenManager = tokenManager(request -> {
+            requests.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.INTERNAL_SERVER_ERROR).build());
+        });
+
+        StepVerifier.create(tokenManager.getAccessToken())
+                .expectError(KeycloakAuthException.class)
+                .verify(Duration.ofSeconds(5));
+        assertThat(requests).hasValue(1);
+
+        scheduler.advanceTimeBy(Duration.ofMillis(999));
+        assertThat(requests).hasValue(1);
+        scheduler.advanceTimeBy(Duration.ofMillis(1));
+        assertThat(requests).hasValue(2);
+
+        scheduler.advanceTimeBy(Duration.ofMillis(1999));
+        assertThat(requests).hasValue(2);
+        scheduler.advanceTimeBy(Duration.ofMillis(1));
+        assertThat(requests).hasValue(3);
+
+        scheduler.advanceTimeBy(Duration.ofSeconds(4));
+        assertThat(requests).hasValue(4);
+    }
+
+    @Test
+    void backoffIsCappedAtOneMinute() {
+        tokenManager = tokenManager(request -> {
+            requests.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build());
+        });
+
+        StepVerifier.create(tokenManager.getAccessToken())
+                .expectError(KeycloakAuthException.class)
+                .verify(Duration.ofSeconds(5));
+
+        // 1 + 2 + 4 + 8 + 16 + 32 seconds, then capped at 60
+        scheduler.advanceTimeBy(Duration.ofSeconds(63));
+        assertThat(requests).hasValue(7);
+        scheduler.advanceTimeBy(Duration.ofSeconds(59));
+        assertThat(requests).hasValue(7);
+        scheduler.advanceTimeBy(Duration.ofSeconds(1));
+        assertThat(requests).hasValue(8);
+    }
+
+    @Test
+    void successfulRetryRestoresTheRefreshSchedule() {
+        tokenManager = tokenManager(request -> requests.incrementAndGet() == 1
+                ? Mono.just(ClientResponse.create(HttpStatus.BAD_GATEWAY).build())
+                : Mono.just(token("token-" + requests.get(), 300)));
+
+        StepVerifier.create(tokenManager.getAccessToken())
+                .expectError(KeycloakAuthException.class)
+                .verify(Duration.ofSeconds(5));
+
+        scheduler.advanceTimeBy(Duration.ofSeconds(1));
+        assertThat(requests).hasValue(2);
+        StepVerifier.create(tokenManager.getAccessToken()).expectNext("token-2").verifyComplete();
+
+        scheduler.advanceTimeBy(Duration.ofSeconds(200));
+        assertThat(requests).hasValue(2);
+        scheduler.advanceTimeBy(Duration.ofSeconds(30));
+        assertThat(requests).hasValue(3);
+    }
+
+    @Test
+    void destroyStopsBackgroundRefreshes() {
+        tokenManager = tokenManager(countingTokens(300));
+
+        StepVerifier.create(tokenManager.getAccessToken()).expectNext("token-1").verifyComplete();
+        tokenManager.destroy();
+
+        scheduler.advanceTimeBy(Duration.ofHours(1));
+        assertThat(requests).hasValue(1);
+    }
+
+    private ExchangeFunction countingTokens(int expiresIn) {
+        return request -> Mono.just(token("token-" + requests.incrementAndGet(), expiresIn));
+    }
+
+    private static ClientResponse token(String accessToken, int expiresIn) {
+        return ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body("""
+                        {"access_token":"%s","expires_in":%d,"token_type":"Bearer"}""".formatted(accessToken, expiresIn))
+                .build();
+    }
+
+    private static KeycloakAdminTokenManager tokenManager(ExchangeFunction exchangeFunction) {
+        KeycloakAuthProperties properties = new KeycloakAuthProperties();
+        properties.setServerUrl("http://keycloak.test");
+        properties.setRealm("test");
+        properties.setClientId("backend");
+        properties.setClientSecret("secret");
+
+        WebClient webClient = WebClient.builder().exchangeFunction(exchangeFunction).build();
+        return new KeycloakAdminTokenManager(webClient, properties, new KeycloakEndpoints(properties));
+    }
+}
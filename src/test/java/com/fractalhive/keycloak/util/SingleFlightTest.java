@@ -0,0 +1,158 @@
+package com.fractalhive.keycloak.util;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void concurrentSubscribersShareOneLoad() {
+        Sinks.One<String> result = Sinks.one();
+        Function<String, Mono<String>> loader = loader(result);
+
+        StepVerifier first = StepVerifier.create(singleFlight.execute("alice", loader))
+                .expectNext("value")
+                .expectComplete()
+                .verifyLater();
+        StepVerifier second = StepVerifier.create(singleFlight.execute("alice", loader))
+                .expectNext("value")
+                .expectComplete()
+                .verifyLater();
+
+        assertThat(loads).hasValue(1);
+        assertThat(singleFlight.size()).isEqualTo(1);
+
+        result.tryEmitValue("value");
+
+        first.verify(Duration.ofSeconds(5));
+        second.verify(Duration.ofSeconds(5));
+        assertThat(loads).hasValue(1);
+        assertThat(singleFlight.size()).isZero();
+    }
+
+    @Test
+    void differentKeysLoadSeparately() {
+        Sinks.One<String> result = Sinks.one();
+
+        Disposable alice = singleFlight.execute("alice", loader(result)).subscribe();
+        Disposable bob = singleFlight.execute("bob", loader(result)).subscribe();
+
+        assertThat(loads).hasValue(2);
+        assertThat(singleFlight.size()).isEqualTo(2);
+        alice.dispose();
+        bob.dispose();
+    }
+
+    @Test
+    void nextSubscriberAfterCompletionStartsAFreshLoad() {
+        Function<String, Mono<String>> loader = key -> Mono.just(key + "-" + loads.incrementAndGet());
+
+        StepVerifier.create(singleFlight.execute("alice", loader)).expectNext("alice-1").verifyComplete();
+        StepVerifier.create(singleFlight.execute("alice", loader)).expectNext("alice-2").verifyComplete();
+
+        assertThat(singleFlight.size()).isZero();
+    }
+
+    @Test
+    void errorIsSharedAndNotCached() {
+        Sinks.One<String> result = Sinks.one();
+        Function<String, Mono<String>> loader = loader(result);
+
+        StepVerifier first = StepVerifier.create(singleFlight.execute("alice", loader))
+                .expectError(IllegalStateException.class)
+                .verifyLater();
+        StepVerifier second = StepVerifier.create(singleFlight.execute("alice", loader))
+                .expectError(IllegalStateException.class)
+                .verifyLater();
+
+        result.tryEmitError(new IllegalStateException("boom"));
+
+        first.verify(Duration.ofSeconds(5));
+        second.verify(Duration.ofSeconds(5));
+        assertThat(loads).hasValue(1);
+
+        StepVerifier.create(singleFlight.execute("alice", key -> Mono.just("recovered")))
+                .expectNext("recovered")
+                .verifyComplete();
+    }
+
+    @Test
+    void emptyCompletionIsShared() {
+        Sinks.One<String> result = Sinks.one();
+        Function<String, Mono<String>> loader = loader(result);
+
+        StepVerifier first = StepVerifier.create(singleFlight.execute("alice", loader))
+                .expectComplete()
+                .verifyLater();
+        StepVerifier second = StepVerifier.create(singleFlight.execute("alice", loader))
+                .expectComplete()
+                .verifyLater();
+
+        result.tryEmitEmpty();
+
+        first.verify(Duration.ofSeconds(5));
+        second.verify(Duration.ofSeconds(5));
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void forgetLetsLaterSubscribersStartAFreshLoad() {
+        Sinks.One<String> stale = Sinks.one();
+        Disposable before = singleFlight.execute("alice", loader(stale)).subscribe();
+
+        singleFlight.forget("alice");
+
+        StepVerifier.create(singleFlight.execute("alice", key -> {
+                    loads.incrementAndGet();
+                    return Mono.just("fresh");
+                }))
+                .expectNext("fresh")
+                .verifyComplete();
+        assertThat(loads).hasValue(2);
+
+        // The forgotten load must not release the key of a load started after it
+        Sinks.One<String> current = Sinks.one();
+        Disposable after = singleFlight.execute("alice", loader(current)).subscribe();
+        stale.tryEmitValue("stale");
+        assertThat(singleFlight.size()).isEqualTo(1);
+
+        before.dispose();
+        after.dispose();
+    }
+
+    @Test
+    void loadKeepsRunningWhenSubscribersCancel() {
+        Sinks.One<String> result = Sinks.one();
+        Function<String, Mono<String>> loader = loader(result);
+
+        singleFlight.execute("alice", loader).subscribe().dispose();
+
+        StepVerifier joined = StepVerifier.create(singleFlight.execute("alice", loader))
+                .expectNext("value")
+                .expectComplete()
+                .verifyLater();
+        result.tryEmitValue("value");
+
+        joined.verify(Duration.ofSeconds(5));
+        assertThat(loads).hasValue(1);
+    }
+
+    private Function<String, Mono<String>> loader(Sinks.One<String> result) {
+        return key -> {
+            loads.incrementAndGet();
+            return result.asMono();
+        };
+    }
+}